@@ -0,0 +1,141 @@
+package app.benchmark;
+
+import app.Application;
+import app.notification.client.StubNotificationClientConfiguration;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.service.TransactionService;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.wallet.model.Wallet;
+import app.wallet.service.WalletService;
+import app.web.dto.RegisterRequest;
+import app.web.dto.TransferRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of the wallet and transaction hot paths, through the real services, against
+ * the embedded H2 database of the test profile with the notification service stubbed out.
+ * <p>
+ * Numbers are only comparable between runs on the same machine - compare a branch against main before deploying:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec                                   # all benchmarks, with the gc profiler
+ * mvn -Pjmh test-compile exec:exec -Djmh.includes=WalletHotPathBenchmark.charge
+ * </pre>
+ * Results are also written to target/jmh-result.json. The gc profiler adds gc.alloc.rate.norm - bytes allocated
+ * per operation, the figure to watch for allocation regressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class WalletHotPathBenchmark {
+    private static final int USERS = 200;
+    private static final BigDecimal STARTING_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private TransactionService transactionService;
+    private TransactionTemplate transactionTemplate;
+    private final List<User> users = new ArrayList<>();
+    private final List<Wallet> wallets = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+
+        context = new SpringApplicationBuilder(Application.class, StubNotificationClientConfiguration.class)
+                .profiles("test")
+                // The security configuration needs the servlet stack; a random port keeps runs from clashing
+                .properties("server.port=0", "logging.level.root=WARN", "spring.main.banner-mode=off")
+                .run();
+
+        walletService = context.getBean(WalletService.class);
+        transactionService = context.getBean(TransactionService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        UserService userService = context.getBean(UserService.class);
+
+        for (int i = 0; i < USERS; i++) {
+            User user = userService.register(RegisterRequest.builder()
+                    .username("bench-user-%04d".formatted(i))
+                    .password("bench-password")
+                    .country(Country.BULGARIA)
+                    .build());
+            Wallet wallet = user.getWallets().get(0);
+            walletService.topUp(wallet.getId(), STARTING_BALANCE);
+
+            users.add(user);
+            wallets.add(wallet);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction topUp() {
+        return walletService.topUp(randomWallet().getId(), AMOUNT);
+    }
+
+    @Benchmark
+    public Transaction charge() {
+
+        int index = randomIndex();
+        return walletService.charge(users.get(index), wallets.get(index).getId(), AMOUNT, "Benchmark charge");
+    }
+
+    @Benchmark
+    public Transaction transferFunds() {
+
+        int sender = randomIndex();
+        int receiver = (sender + 1 + ThreadLocalRandom.current().nextInt(USERS - 1)) % USERS;
+
+        return walletService.transferFunds(users.get(sender).getId(), TransferRequest.builder()
+                .fromWalletId(wallets.get(sender).getId())
+                .toUsername(users.get(receiver).getUsername())
+                .amount(AMOUNT)
+                .build());
+    }
+
+    // The home page query - last transactions of each of a user's wallets
+    @Benchmark
+    public Map<UUID, List<Transaction>> getLastTransactionsPerWallet() {
+        return walletService.getLastTransactionsPerWallet(List.of(randomWallet()));
+    }
+
+    // In a transaction like every production caller - the insert, notification outbox entry and rollup upsert
+    @Benchmark
+    public Transaction createNewTransaction() {
+
+        int index = randomIndex();
+        return transactionTemplate.execute(status -> transactionService.createNewTransaction(
+                users.get(index), wallets.get(index), "Smart Wallet Ltd", AMOUNT, STARTING_BALANCE,
+                wallets.get(index).getCurrency(), TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED,
+                "Benchmark transaction", null));
+    }
+
+    private Wallet randomWallet() {
+        return wallets.get(randomIndex());
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(USERS);
+    }
+}
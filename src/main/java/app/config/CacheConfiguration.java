@@ -0,0 +1,68 @@
+package app.config;
+
+import app.user.service.UserDirectoryService;
+import app.web.dto.UserDirectoryFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Caffeine caches with the size, TTL and refresh policy of each cache taken from "caches.specs.*".
+ * <p>
+ * Stats are always recorded; the caches are registered up front, so actuator binds their hit/miss/eviction
+ * metrics (cache.gets, cache.evictions, ...) at startup.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfiguration {
+    public static final String USER_DIRECTORY_PAGES_CACHE = "user-directory-pages";
+    public static final String USER_SUMMARIES_CACHE = "user-summaries";
+    public static final String USER_SNAPSHOTS_CACHE = "user-snapshots";
+    public static final String IDEMPOTENCY_REPLAYS_CACHE = "idempotency-replays";
+    public static final String RATE_LIMIT_BUCKETS_CACHE = "rate-limit-buckets";
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties, ObjectProvider<UserDirectoryService> userDirectoryService) {
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeineSpec(CaffeineSpec.parse(cacheProperties.getDefaultSpec()));
+
+        // refreshAfterWrite reloads in the background while the old value is still served - it needs a loader
+        Map<String, CacheLoader<Object, Object>> loaders = Map.of(
+                USER_DIRECTORY_PAGES_CACHE, key -> userDirectoryService.getObject().loadPageIds((UserDirectoryFilter) key));
+
+        cacheProperties.getSpecs().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, buildCache(name, spec, loaders.get(name))));
+
+        return cacheManager;
+    }
+
+    private Cache<Object, Object> buildCache(String name, String spec, CacheLoader<Object, Object> loader) {
+
+        Caffeine<Object, Object> builder = Caffeine.from(spec).recordStats();
+
+        // Weighted caches count the elements of collection values
+        if (spec.contains("maximumWeight")) {
+            builder.weigher((key, value) -> value instanceof Collection<?> collection ? Math.max(1, collection.size()) : 1);
+        }
+
+        if (spec.contains("refreshAfterWrite")) {
+            if (loader == null) {
+                throw new IllegalStateException("Cache [%s] uses refreshAfterWrite but has no loader.".formatted(name));
+            }
+            return builder.build(loader);
+        }
+
+        return builder.build();
+    }
+}
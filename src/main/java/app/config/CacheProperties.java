@@ -0,0 +1,18 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "caches")
+public class CacheProperties {
+
+    // Used for any cache without its own spec, so no cache is ever unbounded
+    private String defaultSpec;
+
+    // Cache name -> Caffeine spec (maximumSize/maximumWeight, expireAfterWrite, refreshAfterWrite, ...)
+    private Map<String, String> specs = new LinkedHashMap<>();
+}
@@ -0,0 +1,31 @@
+package app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * A small pool of its own for the streamed transaction exports. Its URL turns on Connector/J's useCursorFetch, which
+ * reads a result set with a fetch size through a server-side cursor - but also switches every statement of the
+ * connection to server-side prepared statements, an extra round trip per statement the request pool shouldn't pay.
+ * <p>
+ * Neither bean is a candidate for by-type injection, so Boot's own DataSource stays the application's DataSource.
+ */
+@Configuration
+public class ExportDataSourceConfiguration {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("transactions.export.datasource")
+    public DataSourceProperties exportDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("transactions.export.datasource.hikari")
+    public HikariDataSource exportDataSource(@Qualifier("exportDataSourceProperties") DataSourceProperties exportDataSourceProperties) {
+        return exportDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,26 @@
+package app.config;
+
+import app.subscription.model.SubscriptionType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "rate-limits")
+public class RateLimitProperties {
+
+    // Subscription type -> limit of each money endpoint, per user
+    private Map<SubscriptionType, Limit> tiers = new EnumMap<>(SubscriptionType.class);
+
+    @Data
+    public static class Limit {
+
+        // Requests a client can send in a burst
+        private int capacity;
+
+        // Requests per minute once the burst is used up
+        private int refillPerMinute;
+    }
+}
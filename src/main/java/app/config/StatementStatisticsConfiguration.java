@@ -0,0 +1,39 @@
+package app.config;
+
+import app.persistence.JdbcTimingSessionListener;
+import app.persistence.StatementCountingInspector;
+import app.web.StatementStatisticsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+/**
+ * Per-request SQL statement counts and JDBC time, to catch pages that load associations one query at a time.
+ * Development and test only - production relies on the regular metrics.
+ */
+@Configuration
+@Profile({"dev", "test"})
+public class StatementStatisticsConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementStatisticsHibernateProperties() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountingInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingSessionListener.class.getName());
+        };
+    }
+
+    // Ahead of Spring Security, so loading the user at login counts as well
+    @Bean
+    public FilterRegistrationBean<StatementStatisticsFilter> statementStatisticsFilter(MeterRegistry meterRegistry) {
+
+        FilterRegistrationBean<StatementStatisticsFilter> registration = new FilterRegistrationBean<>(new StatementStatisticsFilter(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
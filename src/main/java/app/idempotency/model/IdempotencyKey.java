@@ -0,0 +1,50 @@
+package app.idempotency.model;
+
+import app.persistence.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_id", "idempotency_key"})
+}, indexes = {
+        @Index(name = "idx_idempotency_keys_created_on", columnList = "created_on")
+})
+public class IdempotencyKey {
+    @Id
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false, length = 64)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotentOperation operation;
+
+    // SHA-256 (hex) of the request parameters - a key may only be replayed for the request it was first used with
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // Null while the operation is still running
+    @Basic
+    private UUID transactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+}
@@ -0,0 +1,25 @@
+package app.idempotency.repository;
+
+import app.idempotency.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, UUID> {
+    Optional<IdempotencyKey> findByUserIdAndIdempotencyKey(UUID userId, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.transactionId = :transactionId WHERE k.id = :id")
+    int complete(@Param("id") UUID id, @Param("transactionId") UUID transactionId);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdOn < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,194 @@
+package app.idempotency.service;
+
+import app.config.CacheConfiguration;
+import app.exception.DomainException;
+import app.idempotency.model.IdempotencyKey;
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.repository.IdempotencyKeyRepository;
+import app.transaction.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Runs a money operation at most once per client-supplied key: a retry with the same key gets the id of the
+ * transaction the first attempt produced, without touching any wallet.
+ * <p>
+ * The key is claimed in its own short transaction before the operation runs and completed with the transaction id
+ * after it committed, so the operation keeps its own transaction boundaries (transfers hold their wallet stripes
+ * until commit). An operation that throws releases its claim, so the retry runs it again. Completed keys are kept
+ * in the per-node "idempotency-replays" cache; a retry on the same node never reaches the database.
+ * <p>
+ * A key is bound to the request it was first used with: reusing it for another operation or other parameters is
+ * rejected instead of silently returning the first request's result.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final long IN_PROGRESS_POLL_MILLIS = 50;
+    // Unit separator - can't occur in the parameters, so two parameter lists never join to the same text
+    private static final char PARAMETER_SEPARATOR = '\u001f';
+    @Value("${idempotency.in-progress-wait}")
+    private Duration inProgressWait;
+    @Value("${idempotency.retention}")
+    private Duration retention;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate requiresNewTransaction;
+    private final Cache replays;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, PlatformTransactionManager transactionManager,
+                              CacheManager cacheManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.replays = cacheManager.getCache(CacheConfiguration.IDEMPOTENCY_REPLAYS_CACHE);
+    }
+
+    /**
+     * @param parameters what the request asks for (wallets, amount, ...) - a retry must send the same ones
+     * @return the id of the transaction of the operation - the first attempt's when the key was seen before
+     */
+    public UUID execute(UUID userId, String key, IdempotentOperation operation, List<?> parameters, Supplier<Transaction> action) {
+
+        // Clients that send no key get the old behaviour
+        if (key == null || key.isBlank()) {
+            return action.get().getId();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new DomainException("Idempotency key must be at most %d characters.".formatted(MAX_KEY_LENGTH));
+        }
+
+        String requestHash = hash(operation, parameters);
+        String cacheKey = "%s:%s".formatted(userId, key);
+        IdempotencyKey replay = replays.get(cacheKey, IdempotencyKey.class);
+        if (replay != null) {
+            return replayOf(replay, operation, requestHash);
+        }
+
+        IdempotencyKey claim = claim(userId, key, operation, requestHash);
+        if (claim == null) {
+            return replayOf(awaitCompletion(userId, key, cacheKey), operation, requestHash);
+        }
+
+        Transaction transaction;
+        try {
+            transaction = action.get();
+        } catch (RuntimeException e) {
+            requiresNewTransaction.executeWithoutResult(status -> idempotencyKeyRepository.deleteById(claim.getId()));
+            throw e;
+        }
+
+        requiresNewTransaction.executeWithoutResult(status -> idempotencyKeyRepository.complete(claim.getId(), transaction.getId()));
+        claim.setTransactionId(transaction.getId());
+        replays.put(cacheKey, claim);
+
+        return transaction.getId();
+    }
+
+    public int purgeExpired() {
+        return requiresNewTransaction.execute(status ->
+                idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+    }
+
+    // Null when another request already holds the key
+    private IdempotencyKey claim(UUID userId, String key, IdempotentOperation operation, String requestHash) {
+
+        IdempotencyKey claim = IdempotencyKey.builder()
+                .userId(userId)
+                .idempotencyKey(key)
+                .operation(operation)
+                .requestHash(requestHash)
+                .createdOn(LocalDateTime.now())
+                .build();
+        try {
+            return requiresNewTransaction.execute(status -> idempotencyKeyRepository.saveAndFlush(claim));
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    // A double click arrives while the first request is still running - its result is usually a few ms away
+    private IdempotencyKey awaitCompletion(UUID userId, String key, String cacheKey) {
+
+        long deadline = System.nanoTime() + inProgressWait.toNanos();
+        while (true) {
+            IdempotencyKey existing = replays.get(cacheKey, IdempotencyKey.class);
+            if (existing == null) {
+                // A read-write transaction - the replica may not have the other request's claim yet
+                Optional<IdempotencyKey> stored = requiresNewTransaction.execute(status ->
+                        idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key));
+                if (stored.isEmpty()) {
+                    // The first attempt failed and released the key between our claim and this read
+                    throw new DomainException("Request with idempotency key [%s] failed, please try again.".formatted(key));
+                }
+                existing = stored.get();
+            }
+
+            if (existing.getTransactionId() != null) {
+                replays.put(cacheKey, existing);
+                return existing;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new DomainException("Request with idempotency key [%s] is still being processed.".formatted(key));
+            }
+
+            try {
+                Thread.sleep(IN_PROGRESS_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DomainException("Interrupted while waiting for request with idempotency key [%s].".formatted(key), e);
+            }
+        }
+    }
+
+    private UUID replayOf(IdempotencyKey replay, IdempotentOperation operation, String requestHash) {
+
+        if (replay.getOperation() != operation) {
+            throw new DomainException("Idempotency key [%s] was already used for a %s.".formatted(replay.getIdempotencyKey(), replay.getOperation()));
+        }
+        if (!replay.getRequestHash().equals(requestHash)) {
+            throw new DomainException("Idempotency key [%s] was already used for a different request.".formatted(replay.getIdempotencyKey()));
+        }
+
+        log.info("Replaying %s with idempotency key [%s] for user with id [%s]: transaction [%s].".formatted(
+                operation, replay.getIdempotencyKey(), replay.getUserId(), replay.getTransactionId()));
+        return replay.getTransactionId();
+    }
+
+    // Amounts are compared by value - 10 and 10.00 are the same request
+    private static String hash(IdempotentOperation operation, List<?> parameters) {
+
+        StringBuilder request = new StringBuilder(operation.name());
+        for (Object parameter : parameters) {
+            request.append(PARAMETER_SEPARATOR)
+                    .append(parameter instanceof BigDecimal amount ? amount.stripTrailingZeros().toPlainString() : parameter);
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package app.lease.repository;
+
+import app.lease.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // Extends our own lease or takes over an expired one - the row lock of the UPDATE makes it a compare-and-set
+    @Modifying
+    @Query("""
+            UPDATE JobLease l SET l.holder = :holder, l.leaseUntil = :leaseUntil
+            WHERE l.name = :name AND (l.holder = :holder OR l.leaseUntil < :now)
+            """)
+    int extendOrTakeOver(@Param("name") String name, @Param("holder") String holder,
+                         @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // First acquisition of a job nobody has run yet; 0 rows if another node inserted it first
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_leases (name, holder, lease_until) VALUES (:name, :holder, :leaseUntil)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("holder") String holder, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE JobLease l SET l.leaseUntil = :now WHERE l.name = :name AND l.holder = :holder")
+    int release(@Param("name") String name, @Param("holder") String holder, @Param("now") LocalDateTime now);
+}
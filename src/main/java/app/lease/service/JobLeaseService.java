@@ -0,0 +1,52 @@
+package app.lease.service;
+
+import app.lease.repository.JobLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Time-bound leases in the job_leases table, for jobs that must run on one node of the cluster at a time.
+ * <p>
+ * A holder keeps its lease by acquiring it again before it expires; a node that stops doing so (crash, long GC)
+ * loses it to the next node after the lease duration. Lease times come from the nodes' clocks, so durations must
+ * be well above any clock skew between them.
+ */
+@Slf4j
+@Service
+public class JobLeaseService {
+    private final JobLeaseRepository jobLeaseRepository;
+    private final String nodeId;
+
+    public JobLeaseService(JobLeaseRepository jobLeaseRepository, @Value("${scheduling.node-name}") String nodeName) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        // Unique even for two instances on the same host
+        this.nodeId = "%s-%s".formatted(nodeName, UUID.randomUUID().toString().substring(0, 8));
+        log.info("Scheduling node id is [%s]".formatted(nodeId));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String name, Duration duration) {
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(duration);
+
+        return jobLeaseRepository.extendOrTakeOver(name, nodeId, now, leaseUntil) == 1
+                || jobLeaseRepository.insertIfAbsent(name, nodeId, leaseUntil) == 1;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String name) {
+        jobLeaseRepository.release(name, nodeId, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,48 @@
+package app.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Duration of every scheduled job run (scheduler.run.duration) and the number of items the last run handled
+ * (scheduler.batch.size), both tagged with the job name.
+ */
+@Component
+public class SchedulerMetrics {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> lastBatchSizes = new ConcurrentHashMap<>();
+
+    public SchedulerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return what the run returned - the number of items it handled
+     */
+    public int record(String job, IntSupplier run) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            int batchSize = run.getAsInt();
+            lastBatchSize(job).set(batchSize);
+            return batchSize;
+        } finally {
+            sample.stop(Timer.builder("scheduler.run.duration").tag("job", job).register(meterRegistry));
+        }
+    }
+
+    private AtomicInteger lastBatchSize(String job) {
+        return lastBatchSizes.computeIfAbsent(job, name -> {
+            AtomicInteger batchSize = new AtomicInteger();
+            Gauge.builder("scheduler.batch.size", batchSize, AtomicInteger::get).tag("job", name).register(meterRegistry);
+            return batchSize;
+        });
+    }
+}
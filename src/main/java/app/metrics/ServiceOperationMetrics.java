@@ -0,0 +1,88 @@
+package app.metrics;
+
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.web.dto.BulkTransferLineResult;
+import app.web.dto.BulkTransferResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Times every public operation of WalletService and SubscriptionService as wallet.operations /
+ * subscription.operations, tagged with the operation, the outcome and the failure reason. Money operations report
+ * a failure as a FAILED transaction rather than an exception, so the reason comes from the returned transaction
+ * ("Inactive wallet", "Insufficient funds" ...); exceptions are tagged outcome=error with their class name. A bulk
+ * transfer is succeeded, partial or failed by its lines and tagged with the most common reason of its failed lines.
+ * <p>
+ * Ordered ahead of the transaction advice, so the time includes opening and committing the transaction - how long
+ * the operation holds it. Calls from inside the same service are not proxied and count towards the caller.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceOperationMetrics {
+    private static final String NO_REASON = "none";
+    private final MeterRegistry meterRegistry;
+
+    public ServiceOperationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * app.wallet.service.WalletService.*(..))")
+    public Object timeWalletOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("wallet.operations", joinPoint);
+    }
+
+    @Around("execution(public * app.subscription.service.SubscriptionService.*(..))")
+    public Object timeSubscriptionOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("subscription.operations", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "succeeded";
+        String reason = NO_REASON;
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Transaction transaction) {
+                outcome = transaction.getStatus().name().toLowerCase();
+                reason = transaction.getFailureReason() == null ? NO_REASON : transaction.getFailureReason();
+            } else if (result instanceof BulkTransferResult bulkTransferResult && bulkTransferResult.getFailedCount() > 0) {
+                outcome = bulkTransferResult.getSucceededCount() == 0 ? "failed" : "partial";
+                reason = mostCommonFailureReason(bulkTransferResult);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            reason = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("reason", reason)
+                    .register(meterRegistry));
+        }
+    }
+
+    // Line reasons come from the same fixed set as transaction reasons, so the tag stays low-cardinality
+    private static String mostCommonFailureReason(BulkTransferResult bulkTransferResult) {
+        return bulkTransferResult.getLines().stream()
+                .filter(line -> line.getStatus() == TransactionStatus.FAILED && line.getFailureReason() != null)
+                .collect(Collectors.groupingBy(BulkTransferLineResult::getFailureReason, Collectors.counting()))
+                .entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(NO_REASON);
+    }
+}
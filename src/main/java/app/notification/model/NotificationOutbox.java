@@ -0,0 +1,54 @@
+package app.notification.model;
+
+import app.persistence.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_status_next_attempt", columnList = "status, next_attempt_on"),
+        @Index(name = "idx_notification_outbox_user_status_created_on", columnList = "user_id, status, created_on"),
+        @Index(name = "idx_notification_outbox_status_sent_on", columnList = "status, sent_on")
+})
+public class NotificationOutbox {
+    @Id
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    @Basic
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptOn;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Basic
+    private LocalDateTime sentOn;
+}
@@ -0,0 +1,5 @@
+package app.notification.model;
+
+public enum OutboxStatus {
+    PENDING, SENT, FAILED
+}
@@ -0,0 +1,37 @@
+package app.notification.repository;
+
+import app.notification.model.NotificationOutbox;
+import app.notification.model.OutboxStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, UUID> {
+
+    // A due entry is skipped while an older entry of the same user is still waiting for its retry,
+    // so notifications of one user are always delivered in the order they were written
+    @Query("""
+            SELECT o FROM NotificationOutbox o
+            WHERE o.status = :status AND o.nextAttemptOn <= :now
+              AND NOT EXISTS (
+                  SELECT 1 FROM NotificationOutbox e
+                  WHERE e.userId = o.userId AND e.status = :status
+                    AND e.createdOn < o.createdOn AND e.nextAttemptOn > :now
+              )
+            ORDER BY o.createdOn, o.id
+            """)
+    List<NotificationOutbox> findDue(@Param("status") OutboxStatus status, @Param("now") LocalDateTime now, Limit limit);
+
+    // A range scan of idx_notification_outbox_status_sent_on; FAILED entries are kept for investigation
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = app.notification.model.OutboxStatus.SENT AND o.sentOn < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
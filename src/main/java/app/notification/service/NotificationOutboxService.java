@@ -0,0 +1,138 @@
+package app.notification.service;
+
+import app.lease.service.JobLeaseService;
+import app.notification.model.NotificationOutbox;
+import app.notification.model.OutboxStatus;
+import app.notification.repository.NotificationOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+public class NotificationOutboxService {
+    // Per-user ordering only holds with a single dispatcher, so one node of the cluster drains at a time
+    private static final String DISPATCH_LEASE = "notification-outbox-dispatch";
+    @Value("${notification-svc.outbox.batch-size}")
+    private int batchSize;
+    @Value("${notification-svc.outbox.max-attempts}")
+    private int maxAttempts;
+    @Value("${notification-svc.outbox.initial-backoff}")
+    private Duration initialBackoff;
+    @Value("${notification-svc.outbox.max-backoff}")
+    private Duration maxBackoff;
+    @Value("${notification-svc.outbox.lease-duration}")
+    private Duration leaseDuration;
+    @Value("${notification-svc.outbox.retention}")
+    private Duration retention;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationService notificationService;
+    private final JobLeaseService jobLeaseService;
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    public NotificationOutboxService(NotificationOutboxRepository notificationOutboxRepository, NotificationService notificationService,
+                                     JobLeaseService jobLeaseService) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationService = notificationService;
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    /**
+     * Drains all due outbox entries. Only one thread per node drains at a time; a request that arrives
+     * while a drain is running makes the running drain do one more pass instead of waiting for it.
+     * Across nodes, only the holder of the dispatch lease drains - it renews the lease before every batch,
+     * other nodes' requests return right away and their entries are sent by the holder.
+     *
+     * @return how many entries this call sent or rescheduled
+     */
+    public int dispatchPending() {
+
+        int handled = 0;
+        dispatchRequested.set(true);
+        while (dispatchRequested.get() && dispatchLock.tryLock()) {
+            try {
+                dispatchRequested.set(false);
+                handled += drain();
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+        return handled;
+    }
+
+    private int drain() {
+
+        int handled = 0;
+        List<NotificationOutbox> batch;
+        while (jobLeaseService.tryAcquire(DISPATCH_LEASE, leaseDuration)
+                && !(batch = notificationOutboxRepository.findDue(OutboxStatus.PENDING, LocalDateTime.now(), Limit.of(batchSize))).isEmpty()) {
+
+            // Once a user's entry fails, the rest of that user's entries wait for it to be retried first
+            Set<UUID> blockedUsers = new HashSet<>();
+
+            for (NotificationOutbox entry : batch) {
+                if (blockedUsers.contains(entry.getUserId())) {
+                    continue;
+                }
+
+                handled++;
+                if (notificationService.sendNotification(entry.getUserId(), entry.getSubject(), entry.getBody())) {
+                    entry.setStatus(OutboxStatus.SENT);
+                    entry.setSentOn(LocalDateTime.now());
+                } else {
+                    scheduleRetry(entry);
+                    blockedUsers.add(entry.getUserId());
+                }
+            }
+
+            notificationOutboxRepository.saveAll(batch);
+        }
+        return handled;
+    }
+
+    private void scheduleRetry(NotificationOutbox entry) {
+
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+
+        if (attempts >= maxAttempts) {
+            entry.setStatus(OutboxStatus.FAILED);
+            log.error("Giving up on notification [%s] for user with id [%s] after [%d] attempts.".formatted(
+                    entry.getId(), entry.getUserId(), attempts));
+            return;
+        }
+
+        // Exponential backoff: initial, 2 x initial, 4 x initial ... capped at max
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+
+        entry.setNextAttemptOn(LocalDateTime.now().plus(backoff));
+    }
+
+    // Sent entries are only kept for a while - without this the table grows with every notification ever sent
+    @Transactional
+    public int purgeSent() {
+        return notificationOutboxRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+    }
+
+    // Lets another node take over right away instead of after the lease runs out
+    @PreDestroy
+    public void releaseDispatchLease() {
+        jobLeaseService.release(DISPATCH_LEASE);
+    }
+}
@@ -6,11 +6,17 @@ import app.notification.client.dto.Notification;
 import app.notification.client.dto.NotificationPreference;
 import app.notification.client.dto.NotificationRequest;
 import app.notification.client.dto.UpsertNotificationPreference;
+import app.notification.model.NotificationOutbox;
+import app.notification.model.OutboxStatus;
+import app.notification.repository.NotificationOutboxRepository;
+import app.web.dto.NotificationEnqueuedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,9 +28,14 @@ public class NotificationService {
     @Value("${notification-svc.failure-message.resend-notifications}")
     private String resendNotificationsFailedMessage;
     private final NotificationClient notificationClient;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public NotificationService(NotificationClient notificationClient) {
+    public NotificationService(NotificationClient notificationClient, NotificationOutboxRepository notificationOutboxRepository,
+                               ApplicationEventPublisher eventPublisher) {
         this.notificationClient = notificationClient;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public void saveNotificationPreference(UUID userId, boolean isEmailEnabled, String email) {
@@ -61,7 +72,43 @@ public class NotificationService {
         }
     }
 
-    public void sendNotification(UUID userId, String subject, String body) {
+    /**
+     * Writes the notification to the outbox as part of the caller's DB transaction. The actual HTTP call to
+     * notification-svc happens later in {@link NotificationOutboxService}, so money movements never wait on it.
+     */
+    public void enqueueNotification(UUID userId, String subject, String body) {
+
+        enqueueNotifications(List.of(NotificationRequest.builder()
+                .userId(userId)
+                .subject(subject)
+                .body(body)
+                .build()));
+    }
+
+    public void enqueueNotifications(List<NotificationRequest> notifications) {
+
+        if (notifications.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> outboxEntries = notifications.stream()
+                .map(n -> NotificationOutbox.builder()
+                        .userId(n.getUserId())
+                        .subject(n.getSubject())
+                        .body(n.getBody())
+                        .status(OutboxStatus.PENDING)
+                        .attempts(0)
+                        .nextAttemptOn(now)
+                        .createdOn(now)
+                        .build())
+                .toList();
+
+        notificationOutboxRepository.saveAll(outboxEntries);
+        eventPublisher.publishEvent(NotificationEnqueuedEvent.builder().userId(notifications.get(0).getUserId()).build());
+    }
+
+    public boolean sendNotification(UUID userId, String subject, String body) {
 
         NotificationRequest notification = NotificationRequest.builder()
                 .userId(userId)
@@ -73,10 +120,13 @@ public class NotificationService {
             ResponseEntity<Void> response = notificationClient.sendNotification(notification);
             if (!response.getStatusCode().is2xxSuccessful()) {
                 log.error("[Feign call to notification-svc failed] Can't send notification to user with id = [%s].".formatted(userId));
+                return false;
             }
 
+            return true;
         } catch (Exception e) {
             log.warn("Can't send notification to user with id = [%s] due to 500 Internal Server Error.".formatted(userId));
+            return false;
         }
     }
 
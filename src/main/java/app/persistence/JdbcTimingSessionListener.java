@@ -0,0 +1,32 @@
+package app.persistence;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the time of every JDBC execute and batch execute to the current {@link StatementStatistics}.
+ * Hibernate creates one listener per session, and a session is used by one thread at a time.
+ */
+public class JdbcTimingSessionListener implements SessionEventListener {
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        StatementStatistics.statementExecuted(System.nanoTime() - executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        StatementStatistics.statementExecuted(System.nanoTime() - batchStart);
+    }
+}
@@ -0,0 +1,34 @@
+package app.persistence;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Pins the HTTP session to the primary for a while after any read-write transaction of one of its requests
+ * committed - long enough for the replica to catch up. Sessions live on one node, so the pin does too.
+ */
+public class ReadYourWritesListener implements TransactionExecutionListener {
+    private final Duration pinDuration;
+
+    public ReadYourWritesListener(Duration pinDuration) {
+        this.pinDuration = pinDuration;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+
+        if (commitFailure != null || transaction.isReadOnly()) {
+            return;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(ReplicaRoutingDataSource.PINNED_UNTIL_ATTRIBUTE,
+                    System.currentTimeMillis() + pinDuration.toMillis(), RequestAttributes.SCOPE_SESSION);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package app.persistence;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Connections of read-only transactions: the replica, unless the read must see this node's latest writes.
+ * <p>
+ * Only page reads go to the replica. Jobs and listeners read rows they are about to update, and a lagging replica
+ * would hand them stale ones, so without an HTTP request the primary serves. A session that has just written is
+ * pinned to the primary by {@link ReadYourWritesListener} for a few seconds, so the page after a form submit shows
+ * the change.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PINNED_UNTIL_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".pinnedUntil";
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Target.PRIMARY;
+        }
+
+        Object pinnedUntil = attributes.getAttribute(PINNED_UNTIL_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+        if (pinnedUntil instanceof Long until && System.currentTimeMillis() < until) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+}
@@ -0,0 +1,16 @@
+package app.persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL string Hibernate prepares - queries, lazy loads, flushes. A JDBC batch is prepared once,
+ * so it counts as one statement however many rows it writes.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        StatementStatistics.statementPrepared();
+        return sql;
+    }
+}
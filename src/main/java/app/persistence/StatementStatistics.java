@@ -0,0 +1,53 @@
+package app.persistence;
+
+/**
+ * SQL statements Hibernate sent and the time spent executing them on the JDBC connection, collected for whatever
+ * unit of work is open on the current thread (an HTTP request, a test block). Work on other threads - @Async
+ * listeners, async request dispatches - is not counted.
+ */
+public final class StatementStatistics {
+    private static final ThreadLocal<StatementStatistics> CURRENT = new ThreadLocal<>();
+    private int statements;
+    private long jdbcNanos;
+
+    private StatementStatistics() {
+    }
+
+    /**
+     * Starts collecting on the current thread; the caller must {@link #stop()} it in a finally block.
+     */
+    public static StatementStatistics start() {
+
+        StatementStatistics statistics = new StatementStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public void stop() {
+        CURRENT.remove();
+    }
+
+    static void statementPrepared() {
+
+        StatementStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+        }
+    }
+
+    static void statementExecuted(long nanos) {
+
+        StatementStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.jdbcNanos += nanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+}
@@ -0,0 +1,50 @@
+package app.persistence;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUID version 7 (RFC 9562): 48-bit Unix millisecond timestamp, then a 12-bit counter, then 62 random bits.
+ * Random v4 keys land anywhere in the InnoDB clustered index and split pages all over it; these keys only
+ * ever grow, so inserts append to the last page. The counter keeps ids strictly increasing within one JVM,
+ * even for many ids in the same millisecond or when the clock steps back.
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC = 0x8000000000000000L;
+    private static final long RANDOM_62_BITS = 0x3FFFFFFFFFFFFFFFL;
+
+    // (unix millis << 12) | counter of the last generated id
+    private static final AtomicLong lastState = new AtomicLong();
+
+    public static UUID next() {
+
+        long now = System.currentTimeMillis() << 12;
+        long state = lastState.updateAndGet(last -> now > last ? now : last + 1);
+
+        long millis = state >>> 12;
+        long counter = state & 0xFFF;
+
+        long mostSignificantBits = (millis << 16) | VERSION_7 | counter;
+        long leastSignificantBits = VARIANT_RFC | (ThreadLocalRandom.current().nextLong() & RANDOM_62_BITS);
+
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
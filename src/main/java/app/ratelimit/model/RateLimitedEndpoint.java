@@ -0,0 +1,6 @@
+package app.ratelimit.model;
+
+// Each endpoint has its own bucket per user, so hammering transfers doesn't block top-ups
+public enum RateLimitedEndpoint {
+    TRANSFER, BULK_TRANSFER, WALLET_TOP_UP
+}
@@ -0,0 +1,80 @@
+package app.ratelimit.service;
+
+import app.config.CacheConfiguration;
+import app.config.RateLimitProperties;
+import app.exception.RateLimitExceededException;
+import app.ratelimit.model.RateLimitedEndpoint;
+import app.subscription.model.SubscriptionType;
+import app.user.service.UserService;
+import app.web.dto.SubscriptionCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user, per-endpoint token buckets sized by the user's subscription type, kept in the per-node
+ * "rate-limit-buckets" cache. The subscription is only read when a bucket is created; a new subscription drops the
+ * owner's buckets on this node, and on other nodes the buckets pick it up once they have been idle long enough to
+ * expire. An expired or evicted bucket starts full again.
+ */
+@Slf4j
+@Service
+public class RateLimitService {
+    private final RateLimitProperties rateLimitProperties;
+    private final UserService userService;
+    private final MeterRegistry meterRegistry;
+    private final Cache buckets;
+
+    public RateLimitService(RateLimitProperties rateLimitProperties, UserService userService, MeterRegistry meterRegistry,
+                            CacheManager cacheManager) {
+        for (SubscriptionType type : SubscriptionType.values()) {
+            if (!rateLimitProperties.getTiers().containsKey(type)) {
+                throw new IllegalStateException("No rate limit configured for subscription type [%s].".formatted(type));
+            }
+        }
+
+        this.rateLimitProperties = rateLimitProperties;
+        this.userService = userService;
+        this.meterRegistry = meterRegistry;
+        this.buckets = cacheManager.getCache(CacheConfiguration.RATE_LIMIT_BUCKETS_CACHE);
+    }
+
+    public void acquire(UUID userId, RateLimitedEndpoint endpoint) {
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get("%s:%s".formatted(userId, endpoint), () -> newBucket(userId, now));
+
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos > 0) {
+            meterRegistry.counter("rate.limit.rejections", "endpoint", endpoint.name()).increment();
+            log.warn("User with id [%s] is over the rate limit of [%s].".formatted(userId, endpoint));
+            throw new RateLimitExceededException("Too many requests, please try again later.",
+                    Duration.ofSeconds(TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        }
+    }
+
+    // After commit, so the next bucket is sized by the new subscription
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubscriptionCreated(SubscriptionCreatedEvent event) {
+
+        for (RateLimitedEndpoint endpoint : RateLimitedEndpoint.values()) {
+            buckets.evict("%s:%s".formatted(event.getOwnerId(), endpoint));
+        }
+    }
+
+    private TokenBucket newBucket(UUID userId, long now) {
+
+        SubscriptionType type = userService.getSnapshotById(userId).getSubscriptions().get(0).getType();
+        RateLimitProperties.Limit limit = rateLimitProperties.getTiers().get(type);
+
+        return new TokenBucket(limit.getCapacity(), TimeUnit.MINUTES.toNanos(1) / limit.getRefillPerMinute(), now);
+    }
+}
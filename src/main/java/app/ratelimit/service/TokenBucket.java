@@ -0,0 +1,40 @@
+package app.ratelimit.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket without locks. The whole state is one timestamp - the moment the bucket is full again - so taking
+ * a token is a single compare-and-set: every token taken pushes that moment one refill interval further, and a token
+ * is only available while the moment is at most capacity intervals ahead.
+ */
+public class TokenBucket {
+    private final long capacity;
+    private final long nanosPerToken;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, long nanosPerToken, long nowNanos) {
+        this.capacity = capacity;
+        this.nanosPerToken = nanosPerToken;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise how many nanoseconds until the next one is available
+     */
+    public long tryConsume(long nowNanos) {
+
+        while (true) {
+            long current = fullAt.get();
+            // nanoTime values are only comparable by their difference
+            long next = (current - nowNanos > 0 ? current : nowNanos) + nanosPerToken;
+
+            long wait = next - nowNanos - capacity * nanosPerToken;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package app.report.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+public enum ReportPeriod {
+    DAY, WEEK, MONTH;
+
+    // First day of the period the date falls in; weeks start on Monday
+    public LocalDate startOf(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package app.report.model;
+
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Count and sum of one owner's transactions per wallet, day, type and status. Kept up to date by upserts in the
+ * same database transaction that inserts the transactions; never saved through the entity.
+ * <p>
+ * A sharded wallet's rows are split further by {@code walletShard}, so its concurrent credits don't all queue on one
+ * rollup row - reports sum over the shards like over the wallets.
+ */
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(TransactionRollupId.class)
+@Table(name = "transaction_daily_rollups", indexes = {
+        @Index(name = "idx_transaction_daily_rollups_rollup_date", columnList = "rollup_date")
+})
+public class TransactionRollup {
+    // Primary key starts with the owner, so one user's report is a range scan of the clustered index
+    @Id
+    private UUID ownerId;
+
+    @Id
+    private LocalDate rollupDate;
+
+    @Id
+    private UUID walletId;
+
+    // 0 for wallets that aren't sharded. Named to sort after walletId - Hibernate orders the key columns by name
+    @Id
+    private int walletShard;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status;
+
+    @Basic
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+}
@@ -0,0 +1,29 @@
+package app.report.model;
+
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRollupId implements Serializable {
+
+    private UUID ownerId;
+
+    private LocalDate rollupDate;
+
+    private UUID walletId;
+
+    private int walletShard;
+
+    private TransactionType type;
+
+    private TransactionStatus status;
+}
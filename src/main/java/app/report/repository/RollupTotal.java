@@ -0,0 +1,20 @@
+package app.report.repository;
+
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface RollupTotal {
+
+    LocalDate getRollupDate();
+
+    TransactionType getType();
+
+    TransactionStatus getStatus();
+
+    long getTransactionCount();
+
+    BigDecimal getAmount();
+}
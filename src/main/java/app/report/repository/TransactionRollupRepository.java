@@ -0,0 +1,57 @@
+package app.report.repository;
+
+import app.report.model.TransactionRollup;
+import app.report.model.TransactionRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, TransactionRollupId>, TransactionRollupRepositoryCustom {
+
+    // Per day across all users - a range on idx_transaction_daily_rollups_rollup_date
+    @Query("""
+            SELECT r.rollupDate AS rollupDate, r.type AS type, r.status AS status,
+                   SUM(r.transactionCount) AS transactionCount, SUM(r.amount) AS amount
+            FROM TransactionRollup r
+            WHERE r.rollupDate BETWEEN :from AND :to
+            GROUP BY r.rollupDate, r.type, r.status
+            """)
+    List<RollupTotal> findTotalsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+            SELECT r.rollupDate AS rollupDate, r.type AS type, r.status AS status,
+                   SUM(r.transactionCount) AS transactionCount, SUM(r.amount) AS amount
+            FROM TransactionRollup r
+            WHERE r.ownerId = :ownerId AND r.rollupDate BETWEEN :from AND :to
+            GROUP BY r.rollupDate, r.type, r.status
+            """)
+    List<RollupTotal> findOwnerTotalsBetween(@Param("ownerId") UUID ownerId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollup r WHERE r.ownerId IN :ownerIds AND r.rollupDate >= :from AND r.rollupDate < :before")
+    int deleteByOwnersBetween(@Param("ownerIds") Collection<UUID> ownerIds, @Param("from") LocalDate from, @Param("before") LocalDate before);
+
+    // Rows created before the typed wallet references are skipped until WalletReferenceBackfill has filled them.
+    // Rebuilt rows aren't written concurrently anymore, so they go to shard 0
+    @Modifying
+    @Query(value = """
+            INSERT INTO transaction_daily_rollups (owner_id, rollup_date, wallet_id, wallet_shard, type, status, transaction_count, amount)
+            SELECT t.owner_id, CAST(t.created_on AS DATE), COALESCE(t.sender_wallet_id, t.receiver_wallet_id), 0, t.type, t.status,
+                   COUNT(*), SUM(t.amount)
+            FROM transactions t
+            WHERE t.owner_id IN (:ownerIds) AND t.created_on >= :from AND t.created_on < :before
+              AND COALESCE(t.sender_wallet_id, t.receiver_wallet_id) IS NOT NULL
+            GROUP BY t.owner_id, CAST(t.created_on AS DATE), COALESCE(t.sender_wallet_id, t.receiver_wallet_id), t.type, t.status
+            """, nativeQuery = true)
+    int insertFromTransactions(@Param("ownerIds") Collection<UUID> ownerIds, @Param("from") LocalDateTime from,
+                               @Param("before") LocalDateTime before);
+}
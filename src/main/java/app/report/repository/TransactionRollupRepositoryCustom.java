@@ -0,0 +1,15 @@
+package app.report.repository;
+
+import app.report.model.TransactionRollup;
+
+import java.util.List;
+
+public interface TransactionRollupRepositoryCustom {
+
+    /**
+     * Adds the counts and amounts to their rollup rows, creating the missing ones, with one JDBC batch.
+     * Rows are upserted in the given order - callers pass them sorted by key, so concurrent batches lock the
+     * rollup rows they share in the same order.
+     */
+    void addAll(List<TransactionRollup> deltas);
+}
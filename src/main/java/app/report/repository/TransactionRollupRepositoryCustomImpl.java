@@ -0,0 +1,50 @@
+package app.report.repository;
+
+import app.report.model.TransactionRollup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.util.List;
+import java.util.UUID;
+
+public class TransactionRollupRepositoryCustomImpl implements TransactionRollupRepositoryCustom {
+    private static final String ADD_SQL = """
+            INSERT INTO transaction_daily_rollups (owner_id, rollup_date, wallet_id, wallet_shard, type, status, transaction_count, amount)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE transaction_count = transaction_count + VALUES(transaction_count),
+                                    amount = amount + VALUES(amount)
+            """;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionRollupRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addAll(List<TransactionRollup> deltas) {
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(ADD_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setBytes(1, toBytes(delta.getOwnerId()));
+            ps.setDate(2, Date.valueOf(delta.getRollupDate()));
+            ps.setBytes(3, toBytes(delta.getWalletId()));
+            ps.setInt(4, delta.getWalletShard());
+            ps.setString(5, delta.getType().name());
+            ps.setString(6, delta.getStatus().name());
+            ps.setLong(7, delta.getTransactionCount());
+            ps.setBigDecimal(8, delta.getAmount());
+        });
+    }
+
+    // Same layout Hibernate uses for UUID ids stored as BINARY(16)
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
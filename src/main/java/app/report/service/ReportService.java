@@ -0,0 +1,86 @@
+package app.report.service;
+
+import app.report.model.ReportPeriod;
+import app.report.repository.RollupTotal;
+import app.report.repository.TransactionRollupRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.web.dto.ReportFilter;
+import app.web.dto.TransactionReport;
+import app.web.dto.TransactionReportRow;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Transaction reports served from transaction_daily_rollups: the database sums the daily rows of the range,
+ * at most a few per day, and weeks and months are folded from those days here.
+ */
+@Service
+public class ReportService {
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private final TransactionRollupRepository transactionRollupRepository;
+
+    public ReportService(TransactionRollupRepository transactionRollupRepository) {
+        this.transactionRollupRepository = transactionRollupRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionReport getTransactionReport(ReportFilter filter) {
+
+        LocalDate to = filter.getTo() != null ? filter.getTo() : LocalDate.now();
+        LocalDate from = filter.getFrom() != null ? filter.getFrom() : to.minusDays(DEFAULT_RANGE_DAYS - 1);
+        ReportPeriod period = filter.getPeriod() != null ? filter.getPeriod() : ReportPeriod.DAY;
+
+        List<RollupTotal> dailyTotals = filter.getUserId() == null
+                ? transactionRollupRepository.findTotalsBetween(from, to)
+                : transactionRollupRepository.findOwnerTotalsBetween(filter.getUserId(), from, to);
+
+        Map<LocalDate, TransactionReportRow> rows = new TreeMap<>();
+        TransactionReportRow totals = new TransactionReportRow();
+        for (RollupTotal dailyTotal : dailyTotals) {
+            LocalDate periodStart = period.startOf(dailyTotal.getRollupDate());
+            add(rows.computeIfAbsent(periodStart, start -> TransactionReportRow.builder().periodStart(start).build()), dailyTotal);
+            add(totals, dailyTotal);
+        }
+
+        return TransactionReport.builder()
+                .period(period)
+                .from(from)
+                .to(to)
+                .rows(new ArrayList<>(rows.values()))
+                .totals(totals)
+                .build();
+    }
+
+    private void add(TransactionReportRow row, RollupTotal total) {
+
+        long count = total.getTransactionCount();
+        boolean deposit = total.getType() == TransactionType.DEPOSIT;
+        boolean succeeded = total.getStatus() == TransactionStatus.SUCCEEDED;
+
+        row.setTransactions(row.getTransactions() + count);
+        if (deposit) {
+            row.setDeposits(row.getDeposits() + count);
+        } else {
+            row.setWithdrawals(row.getWithdrawals() + count);
+        }
+
+        if (!succeeded) {
+            row.setFailed(row.getFailed() + count);
+            return;
+        }
+
+        row.setSucceeded(row.getSucceeded() + count);
+        if (deposit) {
+            row.setDepositedAmount(row.getDepositedAmount().add(total.getAmount()));
+        } else {
+            row.setWithdrawnAmount(row.getWithdrawnAmount().add(total.getAmount()));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package app.report.service;
+
+import app.lease.service.JobLeaseService;
+import app.report.repository.TransactionRollupRepository;
+import app.user.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recomputes the rollups of a range of days from the transactions table - nightly for the last few days, and from
+ * an early date after the rollup table was added to an existing history or a fix to how rows are counted. Users are walked in primary key order in chunks; every chunk
+ * is deleted and re-aggregated in one transaction on a bounded worker pool, ranged on the transactions owner index.
+ * <p>
+ * Only days before today are rebuilt - today's rows are still being written by the incremental upserts, and a
+ * transaction committing while its day is re-aggregated would be counted twice or not at all.
+ */
+@Slf4j
+@Service
+public class TransactionRollupRebuildService {
+    private static final String REBUILD_LEASE = "transaction-rollup-rebuild";
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService jobLeaseService;
+    private final ExecutorService workers;
+    // Caps the chunks handed over but not finished, so the id pager can't run far ahead of the workers
+    private final Semaphore chunkPermits;
+    private final int chunkSize;
+    private final Duration leaseDuration;
+    private final int recentDays;
+    // The lease only keeps other nodes out - this node extends its own lease, so it could otherwise run twice
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public TransactionRollupRebuildService(TransactionRollupRepository transactionRollupRepository, UserRepository userRepository,
+                                           TransactionTemplate transactionTemplate, JobLeaseService jobLeaseService,
+                                           @Value("${reports.rollup-rebuild.chunk-size}") int chunkSize,
+                                           @Value("${reports.rollup-rebuild.parallelism}") int parallelism,
+                                           @Value("${reports.rollup-rebuild.lease-duration}") Duration leaseDuration,
+                                           @Value("${reports.rollup-rebuild.recent-days}") int recentDays) {
+        this.transactionRollupRepository = transactionRollupRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jobLeaseService = jobLeaseService;
+        this.chunkSize = chunkSize;
+        this.leaseDuration = leaseDuration;
+        this.recentDays = recentDays;
+        this.workers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("rollup-rebuild-"));
+        this.chunkPermits = new Semaphore(parallelism * 2);
+    }
+
+    /**
+     * The last {@code reports.rollup-rebuild.recent-days} days before today - the nightly run, which only has to
+     * catch up with what the incremental upserts might have missed lately.
+     */
+    public int rebuildRecent() {
+        return rebuild(LocalDate.now().minusDays(recentDays));
+    }
+
+    /**
+     * Rebuilds the days from {@code from} up to yesterday. Runs on one node at a time; the lease is renewed before
+     * every chunk, and a node that loses it stops.
+     *
+     * @return how many rollup rows were written
+     */
+    public int rebuild(LocalDate from) {
+
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Transaction rollup rebuild is already running on this node.");
+            return 0;
+        }
+
+        try {
+            return rebuildChunks(from, LocalDate.now());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int rebuildChunks(LocalDate from, LocalDate today) {
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        AtomicInteger rebuiltRows = new AtomicInteger();
+        UUID lastId = null;
+
+        try {
+            while (jobLeaseService.tryAcquire(REBUILD_LEASE, leaseDuration)) {
+                List<UUID> ownerIds = lastId == null
+                        ? userRepository.findIds(Limit.of(chunkSize))
+                        : userRepository.findIdsAfter(lastId, Limit.of(chunkSize));
+                if (ownerIds.isEmpty()) {
+                    break;
+                }
+
+                chunkPermits.acquireUninterruptibly();
+                chunks.add(CompletableFuture
+                        .runAsync(() -> rebuiltRows.addAndGet(rebuildChunk(ownerIds, from, today)), workers)
+                        .whenComplete((result, e) -> {
+                            chunkPermits.release();
+                            if (e != null) {
+                                log.error("Rollup rebuild of the users chunk starting at id [%s] failed.".formatted(ownerIds.get(0)), e);
+                            }
+                        }));
+
+                lastId = ownerIds.get(ownerIds.size() - 1);
+                if (ownerIds.size() < chunkSize) {
+                    break;
+                }
+            }
+
+            // A failed chunk keeps its old rollups - it was rolled back as a whole
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        } finally {
+            jobLeaseService.release(REBUILD_LEASE);
+        }
+
+        if (!chunks.isEmpty()) {
+            log.info("Transaction rollups rebuilt from [%s] before [%s]: [%d] rows in [%d] chunks.".formatted(
+                    from, today, rebuiltRows.get(), chunks.size()));
+        }
+        return rebuiltRows.get();
+    }
+
+    private int rebuildChunk(List<UUID> ownerIds, LocalDate from, LocalDate today) {
+
+        return transactionTemplate.execute(status -> {
+            transactionRollupRepository.deleteByOwnersBetween(ownerIds, from, today);
+            return transactionRollupRepository.insertFromTransactions(ownerIds, from.atStartOfDay(), today.atStartOfDay());
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
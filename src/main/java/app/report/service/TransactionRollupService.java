@@ -0,0 +1,65 @@
+package app.report.service;
+
+import app.report.model.TransactionRollup;
+import app.report.repository.TransactionRollupRepository;
+import app.transaction.model.Transaction;
+import app.wallet.model.Wallet;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps transaction_daily_rollups in step with the transactions table. Called in the transaction that inserts the
+ * rows, so a rollup never counts a rolled back transaction and never misses a committed one.
+ */
+@Service
+public class TransactionRollupService {
+    // Canonical upsert order - two batches touching the same rollup rows lock them in the same order
+    private static final Comparator<TransactionRollup> KEY_ORDER = Comparator
+            .comparing(TransactionRollup::getOwnerId)
+            .thenComparing(TransactionRollup::getRollupDate)
+            .thenComparing(TransactionRollup::getWalletId)
+            .thenComparingInt(TransactionRollup::getWalletShard)
+            .thenComparing(TransactionRollup::getType)
+            .thenComparing(TransactionRollup::getStatus);
+    private final TransactionRollupRepository transactionRollupRepository;
+
+    public TransactionRollupService(TransactionRollupRepository transactionRollupRepository) {
+        this.transactionRollupRepository = transactionRollupRepository;
+    }
+
+    public void record(List<Transaction> transactions) {
+
+        // A bulk transfer creates many transactions on the same rollup row - one upsert each
+        Map<TransactionRollup, TransactionRollup> deltas = new TreeMap<>(KEY_ORDER);
+        for (Transaction transaction : transactions) {
+            Wallet wallet = transaction.getSenderWallet() != null ? transaction.getSenderWallet() : transaction.getReceiverWallet();
+            TransactionRollup key = TransactionRollup.builder()
+                    .ownerId(transaction.getOwner().getId())
+                    .rollupDate(transaction.getCreatedOn().toLocalDate())
+                    .walletId(wallet.getId())
+                    .walletShard(walletShardOf(wallet))
+                    .type(transaction.getType())
+                    .status(transaction.getStatus())
+                    .amount(BigDecimal.ZERO)
+                    .build();
+
+            TransactionRollup delta = deltas.computeIfAbsent(key, k -> k);
+            delta.setTransactionCount(delta.getTransactionCount() + 1);
+            delta.setAmount(delta.getAmount().add(transaction.getAmount()));
+        }
+
+        transactionRollupRepository.addAll(new ArrayList<>(deltas.values()));
+    }
+
+    // Credits to a sharded wallet run side by side; one rollup row per day would serialize them again
+    private static int walletShardOf(Wallet wallet) {
+        return wallet.isSharded() ? ThreadLocalRandom.current().nextInt(wallet.getShardCount()) : 0;
+    }
+}
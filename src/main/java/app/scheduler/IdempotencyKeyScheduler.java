@@ -0,0 +1,23 @@
+package app.scheduler;
+
+import app.idempotency.service.IdempotencyService;
+import app.metrics.SchedulerMetrics;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class IdempotencyKeyScheduler {
+    private final IdempotencyService idempotencyService;
+    private final SchedulerMetrics schedulerMetrics;
+
+    public IdempotencyKeyScheduler(IdempotencyService idempotencyService, SchedulerMetrics schedulerMetrics) {
+        this.idempotencyService = idempotencyService;
+        this.schedulerMetrics = schedulerMetrics;
+    }
+
+    // Runs on every node - deleting the same expired keys twice is harmless
+    @Scheduled(cron = "${idempotency.purge-cron}")
+    public void purgeExpiredKeys() {
+        schedulerMetrics.record("idempotency-key-purge", idempotencyService::purgeExpired);
+    }
+}
@@ -0,0 +1,40 @@
+package app.scheduler;
+
+import app.metrics.SchedulerMetrics;
+import app.notification.service.NotificationOutboxService;
+import app.web.dto.NotificationEnqueuedEvent;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class NotificationOutboxScheduler {
+    private final NotificationOutboxService notificationOutboxService;
+    private final SchedulerMetrics schedulerMetrics;
+
+    public NotificationOutboxScheduler(NotificationOutboxService notificationOutboxService, SchedulerMetrics schedulerMetrics) {
+        this.notificationOutboxService = notificationOutboxService;
+        this.schedulerMetrics = schedulerMetrics;
+    }
+
+    // Entries are picked up right after the money movement commits; a rolled back transaction never gets here
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationEnqueued(NotificationEnqueuedEvent event) {
+        notificationOutboxService.dispatchPending();
+    }
+
+    // Safety net for retries and for entries whose after-commit trigger was lost (e.g. node restart)
+    @Scheduled(fixedDelayString = "${notification-svc.outbox.poll-interval}")
+    public void dispatchPendingNotifications() {
+        schedulerMetrics.record("notification-outbox", notificationOutboxService::dispatchPending);
+    }
+
+    // Runs on every node - deleting the same sent entries twice is harmless
+    @Scheduled(cron = "${notification-svc.outbox.purge-cron}")
+    public void purgeSentNotifications() {
+        schedulerMetrics.record("notification-outbox-purge", notificationOutboxService::purgeSent);
+    }
+}
@@ -1,65 +1,51 @@
 package app.scheduler;
 
-import app.subscription.model.Subscription;
-import app.subscription.model.SubscriptionPeriod;
-import app.subscription.model.SubscriptionType;
-import app.subscription.service.SubscriptionService;
-import app.transaction.model.Transaction;
-import app.transaction.model.TransactionStatus;
-import app.user.model.User;
-import app.web.dto.UpgradeRequest;
+import app.metrics.SchedulerMetrics;
+import app.subscription.service.SubscriptionRenewalService;
+import app.subscription.service.SubscriptionRenewalWheel;
+import app.web.dto.SubscriptionCreatedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-
-import java.util.List;
-import java.util.UUID;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 @Slf4j
 @Component
 public class SubscriptionRenewalScheduler {
-    private final SubscriptionService subscriptionService;
-
-    public SubscriptionRenewalScheduler(SubscriptionService subscriptionService) {
-        this.subscriptionService = subscriptionService;
+    private final SubscriptionRenewalService subscriptionRenewalService;
+    private final SubscriptionRenewalWheel subscriptionRenewalWheel;
+    private final SchedulerMetrics schedulerMetrics;
+
+    public SubscriptionRenewalScheduler(SubscriptionRenewalService subscriptionRenewalService, SubscriptionRenewalWheel subscriptionRenewalWheel,
+                                        SchedulerMetrics schedulerMetrics) {
+        this.subscriptionRenewalService = subscriptionRenewalService;
+        this.subscriptionRenewalWheel = subscriptionRenewalWheel;
+        this.schedulerMetrics = schedulerMetrics;
     }
 
-    @Scheduled(fixedDelay = 20000)
-    public void renewSubscriptions() {
+    // Only advances the in-memory wheel; the database is touched when a due time is actually reached
+    @Scheduled(fixedRateString = "${subscriptions.renewal.wheel.tick}")
+    public void renewDueSubscriptions() {
 
-        List<Subscription> subscriptions = subscriptionService.getAllSubscriptionsReadyForRenewal();
-
-        if (subscriptions.isEmpty()) {
-            log.info("No subscriptions found for renewal.");
-            return;
+        if (subscriptionRenewalWheel.pollDue()) {
+            schedulerMetrics.record("subscription-renewal", subscriptionRenewalService::renewDueSubscriptions);
         }
+    }
 
-        for (Subscription subscription : subscriptions) {
-
-            User owner = subscription.getOwner();
-            if (subscription.isRenewalAllowed()) {
-
-                SubscriptionType subscriptionType = subscription.getType();
-
-                SubscriptionPeriod subscriptionPeriod = subscription.getPeriod();
-                UUID walletId = owner.getWallets().get(0).getId();
-
-                UpgradeRequest upgradeRequest = UpgradeRequest.builder()
-                        .subscriptionPeriod(subscriptionPeriod)
-                        .walletId(walletId)
-                        .build();
-
-                Transaction transaction = subscriptionService.upgrade(owner, subscriptionType, upgradeRequest);
-
-                if (transaction.getStatus() == TransactionStatus.FAILED) {
-                    subscriptionService.markSubscriptionAsTerminated(subscription);
-                    subscriptionService.createDefaultSubscription(owner);
-                }
+    // Safety net: tops up the wheel's window and renews whatever its ticks missed (node down at the due time,
+    // subscriptions created on other nodes inside the loaded window). Runs once right at startup.
+    @Scheduled(fixedDelayString = "${subscriptions.renewal.sweep-interval}")
+    public void sweep() {
 
-            } else {
-                subscriptionService.markSubscriptionAsCompleted(subscription);
-                subscriptionService.createDefaultSubscription(owner);
-            }
+        subscriptionRenewalWheel.load();
+        if (schedulerMetrics.record("subscription-renewal-sweep", subscriptionRenewalService::renewDueSubscriptions) == 0) {
+            log.info("No subscriptions found for renewal.");
         }
     }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubscriptionCreated(SubscriptionCreatedEvent event) {
+        subscriptionRenewalWheel.onSubscriptionCreated(event.getCompletedOn());
+    }
 }
@@ -0,0 +1,132 @@
+package app.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel. Level 0 has {@code wheelSize} slots of one tick each; every next level has slots as
+ * wide as the whole level below, so far-off items sit in coarse slots and are cascaded down as their time comes.
+ * Scheduling is O(1), and {@link #advance(long)} only touches the slots of the ticks that passed.
+ * <p>
+ * An item becomes due once the tick its expiration falls in has fully passed, i.e. at most one tick late and never
+ * early. Scheduling an item again moves it; its old position is dropped when reached. Not a clock - the owner
+ * calls {@link #advance(long)} at least once per tick.
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    // Current expiration per item; wheel entries that don't match it anymore are stale
+    private final Map<T, Long> scheduled = new HashMap<>();
+    // Start of the first tick that hasn't passed yet
+    private long currentTime;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - startMillis % tickMillis;
+    }
+
+    /**
+     * @return false if the expiration is in a tick that has already passed - the caller has to act on it now
+     */
+    public synchronized boolean schedule(T item, long expirationMillis) {
+
+        if (expirationMillis < currentTime) {
+            return false;
+        }
+
+        Long previous = scheduled.put(item, expirationMillis);
+        if (previous == null || previous != expirationMillis) {
+            place(new Entry<>(item, expirationMillis));
+        }
+        return true;
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis}.
+     *
+     * @return the items that became due, in expiration order of their ticks
+     */
+    public synchronized List<T> advance(long nowMillis) {
+
+        List<T> due = new ArrayList<>();
+        while (currentTime + tickMillis <= nowMillis) {
+            for (Entry<T> entry : drain(0, currentTime)) {
+                if (scheduled.remove(entry.item(), entry.expiration())) {
+                    due.add(entry.item());
+                }
+            }
+            currentTime += tickMillis;
+
+            // Highest level first - its slot may cascade into the slot of the level below that starts now too
+            for (int level = levels.size() - 1; level > 0; level--) {
+                if (currentTime % tickOf(level) == 0) {
+                    for (Entry<T> entry : drain(level, currentTime)) {
+                        if (entry.expiration() == scheduled.getOrDefault(entry.item(), -1L)) {
+                            place(entry);
+                        }
+                    }
+                }
+            }
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return scheduled.size();
+    }
+
+    // Lowest level whose window - up to the end of its current lap - reaches the expiration
+    private void place(Entry<T> entry) {
+
+        for (int level = 0; ; level++) {
+            long tick = tickOf(level);
+            long levelStart = currentTime - currentTime % tick;
+            if (entry.expiration() < levelStart + tick * wheelSize) {
+                slotsOf(level)[slot(level, entry.expiration())].add(entry);
+                return;
+            }
+        }
+    }
+
+    private List<Entry<T>> drain(int level, long time) {
+
+        List<Entry<T>>[] slots = slotsOf(level);
+        int slot = slot(level, time);
+        List<Entry<T>> entries = slots[slot];
+        slots[slot] = new ArrayList<>();
+        return entries;
+    }
+
+    private int slot(int level, long time) {
+        return (int) ((time / tickOf(level)) % wheelSize);
+    }
+
+    private long tickOf(int level) {
+
+        long tick = tickMillis;
+        for (int i = 0; i < level; i++) {
+            tick *= wheelSize;
+        }
+        return tick;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entry<T>>[] slotsOf(int level) {
+
+        while (levels.size() <= level) {
+            List<Entry<T>>[] slots = new List[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                slots[i] = new ArrayList<>();
+            }
+            levels.add(slots);
+        }
+        return levels.get(level);
+    }
+
+    private record Entry<T>(T item, long expiration) {
+    }
+}
@@ -0,0 +1,26 @@
+package app.scheduler;
+
+import app.metrics.SchedulerMetrics;
+import app.report.service.TransactionRollupRebuildService;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TransactionRollupScheduler {
+    private final TransactionRollupRebuildService transactionRollupRebuildService;
+    private final SchedulerMetrics schedulerMetrics;
+
+    public TransactionRollupScheduler(TransactionRollupRebuildService transactionRollupRebuildService, SchedulerMetrics schedulerMetrics) {
+        this.transactionRollupRebuildService = transactionRollupRebuildService;
+        this.schedulerMetrics = schedulerMetrics;
+    }
+
+    // Nightly, off-peak; the incremental upserts keep the rollups current in between. Waits for its chunks on an
+    // async thread, not on one of the scheduler's
+    @Async
+    @Scheduled(cron = "${reports.rollup-rebuild.cron}")
+    public void rebuildRollups() {
+        schedulerMetrics.record("transaction-rollup-rebuild", transactionRollupRebuildService::rebuildRecent);
+    }
+}
@@ -1,8 +1,11 @@
 package app.subscription.model;
 
+import app.persistence.TimeOrderedUuid;
 import app.user.model.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -14,13 +17,17 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "subscriptions")
+@Table(name = "subscriptions", indexes = {
+        @Index(name = "idx_subscriptions_status_completed_on", columnList = "status, completed_on")
+})
 public class Subscription {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
     @Column(nullable = false)
@@ -46,4 +53,11 @@ public class Subscription {
 
     @Column(nullable = false)
     private LocalDateTime completedOn;
+
+    // Renewal claim - the node renewing this subscription, and until when no other node may pick it up
+    @Column(length = 64)
+    private String claimedBy;
+
+    @Basic
+    private LocalDateTime claimedUntil;
 }
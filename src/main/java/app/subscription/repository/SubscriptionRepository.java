@@ -3,11 +3,16 @@ package app.subscription.repository;
 import app.subscription.model.Subscription;
 import app.subscription.model.SubscriptionStatus;
 import app.user.model.User;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,5 +21,36 @@ import java.util.UUID;
 public interface SubscriptionRepository extends JpaRepository<Subscription, UUID> {
     Optional<Subscription> findByOwnerIdAndStatus(UUID ownerId, SubscriptionStatus status);
 
-    List<Subscription> findAllByStatusAndCompletedOnLessThanEqual(SubscriptionStatus status, LocalDateTime now);
+    /**
+     * Due, unclaimed (or claim expired) subscriptions, oldest due first. Rows another node is claiming right now
+     * are skipped instead of waited for (FOR UPDATE SKIP LOCKED - lock timeout -2 in Hibernate), so every node
+     * gets a different chunk.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT s FROM Subscription s
+            WHERE s.status = :status AND s.completedOn <= :dueBy
+              AND (s.claimedUntil IS NULL OR s.claimedUntil < :now)
+            ORDER BY s.completedOn
+            """)
+    List<Subscription> findClaimable(@Param("status") SubscriptionStatus status, @Param("dueBy") LocalDateTime dueBy,
+                                     @Param("now") LocalDateTime now, Limit limit);
+
+    // Due times for the renewal wheel - both ranged on idx_subscriptions_status_completed_on
+    @Query("SELECT s.completedOn FROM Subscription s WHERE s.status = :status AND s.completedOn < :until")
+    List<LocalDateTime> findCompletedOnBefore(@Param("status") SubscriptionStatus status, @Param("until") LocalDateTime until);
+
+    @Query("SELECT s.completedOn FROM Subscription s WHERE s.status = :status AND s.completedOn >= :from AND s.completedOn < :until")
+    List<LocalDateTime> findCompletedOnBetween(@Param("status") SubscriptionStatus status, @Param("from") LocalDateTime from,
+                                               @Param("until") LocalDateTime until);
+
+    // Locks the rows this node still holds the claim of, right before renewing them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subscription s WHERE s.id IN :ids AND s.claimedBy = :claimedBy")
+    List<Subscription> lockClaimedByIdIn(@Param("ids") Collection<UUID> ids, @Param("claimedBy") String claimedBy);
+
+    // The renewal charges the owner's first wallet
+    @EntityGraph(attributePaths = {"owner", "owner.wallets"})
+    List<Subscription> findAllByIdIn(Collection<UUID> ids);
 }
@@ -0,0 +1,238 @@
+package app.subscription.service;
+
+import app.lease.service.JobLeaseService;
+import app.subscription.model.Subscription;
+import app.subscription.model.SubscriptionStatus;
+import app.subscription.repository.SubscriptionRepository;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.user.model.User;
+import app.web.dto.UpgradeRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renews due subscriptions in chunks: one thread claims chunks of due subscriptions and hands each to a bounded
+ * worker pool, where it is renewed in its own transaction. A chunk that fails is retried on its own; if it
+ * keeps failing, its subscriptions are renewed one transaction each so a single bad row can't hold back the rest.
+ * <p>
+ * Every node runs this. Claims (claimed_by/claimed_until, taken with SKIP LOCKED) split the due rows between
+ * nodes, and a subscription is only renewed under its row lock while still ACTIVE and claimed by this node, so a
+ * claim that expired mid-run can never lead to a double charge. Failed rows are retried once their claim expires.
+ */
+@Slf4j
+@Service
+public class SubscriptionRenewalService {
+    private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionService subscriptionService;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService jobLeaseService;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService workers;
+    // Caps the chunks handed over but not finished, so the id pager can't run far ahead of the workers
+    private final Semaphore chunkPermits;
+    private final AtomicInteger chunksInFlight = new AtomicInteger();
+    private final Timer chunkTimer;
+    private final int chunkSize;
+    private final int chunkMaxAttempts;
+    private final Duration claimDuration;
+
+    public SubscriptionRenewalService(SubscriptionRepository subscriptionRepository, SubscriptionService subscriptionService,
+                                      TransactionTemplate transactionTemplate, JobLeaseService jobLeaseService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${subscriptions.renewal.chunk-size}") int chunkSize,
+                                      @Value("${subscriptions.renewal.parallelism}") int parallelism,
+                                      @Value("${subscriptions.renewal.chunk-max-attempts}") int chunkMaxAttempts,
+                                      @Value("${subscriptions.renewal.claim-duration}") Duration claimDuration) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.subscriptionService = subscriptionService;
+        this.transactionTemplate = transactionTemplate;
+        this.jobLeaseService = jobLeaseService;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.chunkMaxAttempts = chunkMaxAttempts;
+        this.claimDuration = claimDuration;
+        this.workers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("subscription-renewal-"));
+        this.chunkPermits = new Semaphore(parallelism * 2);
+        this.chunkTimer = Timer.builder("subscriptions.renewal.chunk.duration")
+                .description("Time to renew one chunk of due subscriptions, retries included")
+                .register(meterRegistry);
+        meterRegistry.gauge("subscriptions.renewal.chunks.in-flight", chunksInFlight);
+    }
+
+    /**
+     * @return how many due subscriptions this node claimed
+     */
+    public int renewDueSubscriptions() {
+
+        // Fixed for the whole run - subscriptions becoming due meanwhile wait for the next one
+        LocalDateTime now = LocalDateTime.now();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        int claimedCount = 0;
+
+        List<UUID> ids;
+        while (!(ids = claimChunk(now)).isEmpty()) {
+            claimedCount += ids.size();
+            chunks.add(submitChunk(ids, now));
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        chunks.forEach(CompletableFuture::join);
+
+        if (claimedCount > 0) {
+            log.info("Subscription renewal run finished: [%d] claimed subscriptions in [%d] chunks.".formatted(claimedCount, chunks.size()));
+        }
+        return claimedCount;
+    }
+
+    // Short transaction of its own - the row locks are released as soon as the claim is written
+    private List<UUID> claimChunk(LocalDateTime dueBy) {
+
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Subscription> subscriptions = subscriptionRepository.findClaimable(SubscriptionStatus.ACTIVE, dueBy, now, Limit.of(chunkSize));
+
+            subscriptions.forEach(subscription -> {
+                subscription.setClaimedBy(jobLeaseService.getNodeId());
+                subscription.setClaimedUntil(now.plus(claimDuration));
+            });
+
+            return subscriptions.stream().map(Subscription::getId).toList();
+        });
+    }
+
+    private CompletableFuture<Void> submitChunk(List<UUID> ids, LocalDateTime now) {
+
+        chunkPermits.acquireUninterruptibly();
+        chunksInFlight.incrementAndGet();
+
+        return CompletableFuture
+                .runAsync(() -> chunkTimer.record(() -> processChunk(ids, now)), workers)
+                .whenComplete((result, e) -> {
+                    chunksInFlight.decrementAndGet();
+                    chunkPermits.release();
+                    if (e != null) {
+                        log.error("Subscription renewal chunk starting at id [%s] crashed.".formatted(ids.get(0)), e);
+                    }
+                });
+    }
+
+    private void processChunk(List<UUID> ids, LocalDateTime now) {
+
+        for (int attempt = 1; attempt <= chunkMaxAttempts; attempt++) {
+            try {
+                Map<RenewalOutcome, Integer> outcomes = transactionTemplate.execute(status -> renewAll(ids, now));
+                // Counted only after the commit, so a rolled back attempt is never counted twice
+                outcomes.forEach(this::countOutcome);
+                countChunk(attempt == 1 ? "succeeded" : "retried");
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Subscription renewal chunk starting at id [%s] failed on attempt [%d]: %s"
+                        .formatted(ids.get(0), attempt, e.getMessage()));
+            }
+        }
+
+        countChunk("isolated");
+        for (UUID id : ids) {
+            try {
+                transactionTemplate.execute(status -> renewAll(List.of(id), now)).forEach(this::countOutcome);
+            } catch (RuntimeException e) {
+                countOutcome(RenewalOutcome.FAILED, 1);
+                log.error("Renewal of subscription with id [%s] failed, it stays due for the next run.".formatted(id), e);
+            }
+        }
+    }
+
+    private Map<RenewalOutcome, Integer> renewAll(Collection<UUID> ids, LocalDateTime now) {
+
+        Map<RenewalOutcome, Integer> outcomes = new EnumMap<>(RenewalOutcome.class);
+
+        List<UUID> lockedIds = subscriptionRepository.lockClaimedByIdIn(ids, jobLeaseService.getNodeId()).stream()
+                .map(Subscription::getId)
+                .toList();
+        // Claim expired and taken over by another node
+        if (lockedIds.size() < ids.size()) {
+            outcomes.put(RenewalOutcome.SKIPPED, ids.size() - lockedIds.size());
+        }
+        if (lockedIds.isEmpty()) {
+            return outcomes;
+        }
+
+        // Same session - fills in owners and wallets of the subscriptions locked above
+        for (Subscription subscription : subscriptionRepository.findAllByIdIn(lockedIds)) {
+            outcomes.merge(renew(subscription, now), 1, Integer::sum);
+        }
+        return outcomes;
+    }
+
+    private RenewalOutcome renew(Subscription subscription, LocalDateTime now) {
+
+        // Re-checked under the row lock - it may have been renewed or cancelled since it was claimed
+        if (subscription.getStatus() != SubscriptionStatus.ACTIVE || subscription.getCompletedOn().isAfter(now)) {
+            return RenewalOutcome.SKIPPED;
+        }
+
+        User owner = subscription.getOwner();
+        if (!subscription.isRenewalAllowed()) {
+            subscriptionService.markSubscriptionAsCompleted(subscription);
+            subscriptionService.createDefaultSubscription(owner);
+            return RenewalOutcome.COMPLETED;
+        }
+
+        UpgradeRequest upgradeRequest = UpgradeRequest.builder()
+                .subscriptionPeriod(subscription.getPeriod())
+                .walletId(owner.getWallets().get(0).getId())
+                .build();
+
+        Transaction transaction = subscriptionService.upgrade(owner, subscription.getType(), upgradeRequest);
+        if (transaction.getStatus() == TransactionStatus.FAILED) {
+            subscriptionService.markSubscriptionAsTerminated(subscription);
+            subscriptionService.createDefaultSubscription(owner);
+            return RenewalOutcome.TERMINATED;
+        }
+
+        return RenewalOutcome.RENEWED;
+    }
+
+    private void countOutcome(RenewalOutcome outcome, int count) {
+        Counter.builder("subscriptions.renewal.processed")
+                .description("Due subscriptions processed by the renewal job")
+                .tag("outcome", outcome.name().toLowerCase())
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    private void countChunk(String result) {
+        Counter.builder("subscriptions.renewal.chunks")
+                .description("Renewal chunks by how they were committed")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private enum RenewalOutcome {
+        RENEWED, COMPLETED, TERMINATED, SKIPPED, FAILED
+    }
+}
@@ -0,0 +1,95 @@
+package app.subscription.service;
+
+import app.scheduler.TimingWheel;
+import app.subscription.model.SubscriptionStatus;
+import app.subscription.repository.SubscriptionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory schedule of the upcoming renewal due times, so renewals run close to when subscriptions complete
+ * instead of on a constant poll of the subscriptions table.
+ * <p>
+ * The wheel holds due times only, one entry per tick: a renewal pass claims everything due by then anyway, and on
+ * the 1st of the month thousands of subscriptions share the same few ticks. It covers the next window and is
+ * topped up by {@link #load()}; subscriptions this node creates inside the loaded range are added right after
+ * commit. Every node keeps its own wheel - they all fire at the same time and the claims split the work.
+ */
+@Slf4j
+@Component
+public class SubscriptionRenewalWheel {
+    private final SubscriptionRepository subscriptionRepository;
+    private final TimingWheel<Long> wheel;
+    private final long tickMillis;
+    private final Duration window;
+    // A due time that had already passed when it was scheduled - the next poll triggers a pass for it
+    private final AtomicBoolean overdue = new AtomicBoolean();
+    // Due times before this are in the wheel (or passed); guarded by this
+    private LocalDateTime loadedUntil;
+
+    public SubscriptionRenewalWheel(SubscriptionRepository subscriptionRepository,
+                                    @Value("${subscriptions.renewal.wheel.tick}") long tickMillis,
+                                    @Value("${subscriptions.renewal.wheel.size}") int wheelSize,
+                                    @Value("${subscriptions.renewal.wheel.window}") Duration window,
+                                    MeterRegistry meterRegistry) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.tickMillis = tickMillis;
+        this.window = window;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+
+        Gauge.builder("subscriptions.renewal.wheel.size", wheel, TimingWheel::size).register(meterRegistry);
+    }
+
+    /**
+     * Adds the due times between what is already loaded and now + window. Ranged on (status, completed_on), so
+     * a sweep only reads the subscriptions that came into the window since the previous one.
+     */
+    public synchronized void load() {
+
+        LocalDateTime until = LocalDateTime.now().plus(window);
+        List<LocalDateTime> dueTimes = loadedUntil == null
+                ? subscriptionRepository.findCompletedOnBefore(SubscriptionStatus.ACTIVE, until)
+                : subscriptionRepository.findCompletedOnBetween(SubscriptionStatus.ACTIVE, loadedUntil, until);
+
+        dueTimes.forEach(this::schedule);
+        loadedUntil = until;
+
+        log.info("Loaded [%s] subscription due times until [%s], [%s] ticks scheduled".formatted(dueTimes.size(), until, wheel.size()));
+    }
+
+    // Later due times are read by the next load()
+    public synchronized void onSubscriptionCreated(LocalDateTime completedOn) {
+
+        if (loadedUntil != null && completedOn.isBefore(loadedUntil)) {
+            schedule(completedOn);
+        }
+    }
+
+    /**
+     * @return true if a due time was reached since the last poll and a renewal pass should run
+     */
+    public boolean pollDue() {
+
+        boolean due = !wheel.advance(System.currentTimeMillis()).isEmpty();
+        return overdue.getAndSet(false) || due;
+    }
+
+    private void schedule(LocalDateTime completedOn) {
+
+        long dueMillis = completedOn.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long tick = dueMillis - dueMillis % tickMillis;
+
+        if (!wheel.schedule(tick, tick)) {
+            overdue.set(true);
+        }
+    }
+}
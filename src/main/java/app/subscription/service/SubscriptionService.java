@@ -9,30 +9,44 @@ import app.subscription.repository.SubscriptionRepository;
 import app.transaction.model.Transaction;
 import app.transaction.model.TransactionStatus;
 import app.user.model.User;
+import app.user.repository.UserRepository;
+import app.user.service.UserSnapshotCache;
 import app.wallet.service.WalletService;
+import app.web.dto.SubscriptionCreatedEvent;
 import app.web.dto.UpgradeRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Slf4j
 @Service
 public class SubscriptionService {
     private final SubscriptionRepository subscriptionRepository;
     private final WalletService walletService;
-
-    public SubscriptionService(SubscriptionRepository subscriptionRepository, WalletService walletService) {
+    private final UserSnapshotCache userSnapshotCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserRepository userRepository;
+
+    public SubscriptionService(SubscriptionRepository subscriptionRepository, WalletService walletService,
+                               UserSnapshotCache userSnapshotCache, ApplicationEventPublisher eventPublisher,
+                               UserRepository userRepository) {
+        this.userRepository = userRepository;
         this.subscriptionRepository = subscriptionRepository;
         this.walletService = walletService;
+        this.userSnapshotCache = userSnapshotCache;
+        this.eventPublisher = eventPublisher;
     }
 
     public Subscription createDefaultSubscription(User user) {
         Subscription subscription = subscriptionRepository.save(initializeDefaultSubscription(user));
+        userSnapshotCache.evict(user.getId());
+        publishCreated(subscription);
         log.info("Successfully created new subscription with id [%s] and type [%s]".formatted(
                 subscription.getId(), subscription.getType()
         ));
@@ -54,6 +68,16 @@ public class SubscriptionService {
                 .build();
     }
 
+    // For requests - the user is loaded in the upgrade's transaction instead of taken from a (possibly stale) page snapshot
+    @Transactional
+    public Transaction upgrade(UUID userId, SubscriptionType subscriptionType, UpgradeRequest upgradeRequest) {
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new DomainException("User with id [%s] does not exist.".formatted(userId)));
+
+        return upgrade(user, subscriptionType, upgradeRequest);
+    }
+
     @Transactional
     public Transaction upgrade(User user, SubscriptionType subscriptionType, UpgradeRequest upgradeRequest) {
 
@@ -90,14 +114,25 @@ public class SubscriptionService {
                 .completedOn(completedOn)
                 .build();
         subscriptionRepository.save(newSubscription);
+        publishCreated(newSubscription);
 
         currentSubscription.setCompletedOn(now);
         currentSubscription.setStatus(SubscriptionStatus.COMPLETED);
         subscriptionRepository.save(currentSubscription);
+        userSnapshotCache.evict(user.getId());
 
         return charge;
     }
 
+    // Schedules the renewal on this node's wheel once the subscription is committed
+    private void publishCreated(Subscription subscription) {
+        eventPublisher.publishEvent(SubscriptionCreatedEvent.builder()
+                .subscriptionId(subscription.getId())
+                .ownerId(subscription.getOwner().getId())
+                .completedOn(subscription.getCompletedOn())
+                .build());
+    }
+
     private BigDecimal getSubscriptionPrice(SubscriptionType subscriptionType, SubscriptionPeriod subscriptionPeriod) {
         return switch (subscriptionType) {
             case DEFAULT -> BigDecimal.ZERO;
@@ -112,16 +147,13 @@ public class SubscriptionService {
         };
     }
 
-    public List<Subscription> getAllSubscriptionsReadyForRenewal() {
-        return subscriptionRepository.findAllByStatusAndCompletedOnLessThanEqual(SubscriptionStatus.ACTIVE, LocalDateTime.now());
-    }
-
     public void markSubscriptionAsCompleted(Subscription subscription) {
 
         subscription.setStatus(SubscriptionStatus.COMPLETED);
         subscription.setCompletedOn(LocalDateTime.now());
 
         subscriptionRepository.save(subscription);
+        userSnapshotCache.evict(subscription.getOwner().getId());
     }
 
     public void markSubscriptionAsTerminated(Subscription subscription) {
@@ -130,5 +162,6 @@ public class SubscriptionService {
         subscription.setCompletedOn(LocalDateTime.now());
 
         subscriptionRepository.save(subscription);
+        userSnapshotCache.evict(subscription.getOwner().getId());
     }
 }
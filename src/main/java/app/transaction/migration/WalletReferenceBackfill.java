@@ -0,0 +1,115 @@
+package app.transaction.migration;
+
+import app.transaction.model.TransactionType;
+import app.transaction.repository.TransactionReference;
+import app.transaction.repository.TransactionRepository;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Fills sender_wallet_id / receiver_wallet_id / counterparty for transactions created before the typed wallet
+ * references existed. Rows are walked in primary key order, one chunk per database transaction, so the backfill
+ * never holds long locks and can be interrupted and resumed on the next start.
+ */
+@Slf4j
+@Component
+public class WalletReferenceBackfill {
+    @Value("${transactions.wallet-reference-backfill.enabled}")
+    private boolean enabled;
+    @Value("${transactions.wallet-reference-backfill.chunk-size}")
+    private int chunkSize;
+    private final TransactionRepository transactionRepository;
+    private final WalletRepository walletRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public WalletReferenceBackfill(TransactionRepository transactionRepository, WalletRepository walletRepository,
+                                   TransactionTemplate transactionTemplate) {
+        this.transactionRepository = transactionRepository;
+        this.walletRepository = walletRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+
+        if (!enabled) {
+            return;
+        }
+
+        UUID lastId = null;
+        long processed = 0;
+
+        while (true) {
+            UUID cursor = lastId;
+            List<TransactionReference> chunk = cursor == null
+                    ? transactionRepository.findUnreferenced(Limit.of(chunkSize))
+                    : transactionRepository.findUnreferencedAfter(cursor, Limit.of(chunkSize));
+
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> backfillChunk(chunk));
+            processed += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+
+        if (processed > 0) {
+            log.info("Backfilled wallet references for [%d] transactions".formatted(processed));
+        }
+    }
+
+    private void backfillChunk(List<TransactionReference> chunk) {
+
+        List<UUID> walletIds = chunk.stream()
+                .map(this::walletSide)
+                .map(WalletReferenceBackfill::parseUuid)
+                .filter(Objects::nonNull)
+                .toList();
+        Set<UUID> existingWalletIds = walletRepository.findExistingIds(walletIds);
+
+        for (TransactionReference reference : chunk) {
+            UUID walletId = parseUuid(walletSide(reference));
+            if (walletId == null || !existingWalletIds.contains(walletId)) {
+                // Row stays unreferenced; the cursor moves past it so it is not picked up again in this run
+                continue;
+            }
+
+            Wallet wallet = walletRepository.getReferenceById(walletId);
+            boolean isWithdrawal = reference.getType() == TransactionType.WITHDRAWAL;
+
+            transactionRepository.updateWalletReferences(
+                    reference.getId(),
+                    isWithdrawal ? wallet : null,
+                    isWithdrawal ? null : wallet,
+                    isWithdrawal ? reference.getReceiver() : reference.getSender());
+        }
+    }
+
+    // A withdrawal always leaves the wallet in sender, a deposit always lands on the wallet in receiver
+    private String walletSide(TransactionReference reference) {
+        return reference.getType() == TransactionType.WITHDRAWAL ? reference.getSender() : reference.getReceiver();
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package app.transaction.model;
 
+import app.persistence.TimeOrderedUuid;
 import app.user.model.User;
+import app.wallet.model.Wallet;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,13 +19,19 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_owner_created_on_id", columnList = "owner_id, created_on DESC, id DESC"),
+        @Index(name = "idx_transactions_sender_wallet_status_created_on", columnList = "sender_wallet_id, status, created_on DESC, id DESC"),
+        @Index(name = "idx_transactions_receiver_wallet_status_created_on", columnList = "receiver_wallet_id, status, created_on DESC, id DESC")
+})
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
     @Column(nullable = false)
@@ -30,6 +40,18 @@ public class Transaction {
     @Column(nullable = false)
     private String receiver;
 
+    // Typed side of the transaction - exactly one of the two wallets is set, the other side is described by counterparty
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_wallet_id", columnDefinition = "BINARY(16)")
+    private Wallet senderWallet;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "receiver_wallet_id", columnDefinition = "BINARY(16)")
+    private Wallet receiverWallet;
+
+    @Basic
+    private String counterparty;
+
     @Column(nullable = false)
     private BigDecimal amount;
 
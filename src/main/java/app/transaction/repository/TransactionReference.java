@@ -0,0 +1,19 @@
+package app.transaction.repository;
+
+import app.transaction.model.TransactionType;
+
+import java.util.UUID;
+
+/**
+ * Projection of the legacy free-text sender/receiver of a transaction, used to backfill its typed wallet references.
+ */
+public interface TransactionReference {
+
+    UUID getId();
+
+    TransactionType getType();
+
+    String getSender();
+
+    String getReceiver();
+}
@@ -1,15 +1,80 @@
 package app.transaction.repository;
 
 import app.transaction.model.Transaction;
-import org.springframework.data.jpa.repository.JpaRepository;
+import app.wallet.model.Wallet;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
-    List<Transaction> findAllByOwnerIdOrderByCreatedOnDesc(UUID ownerId);
+    List<Transaction> findAllByOwnerIdOrderByCreatedOnDescIdDesc(UUID ownerId, Limit limit);
 
-    List<Transaction> findAllBySenderOrReceiverOrderByCreatedOnDesc(String sender, String receiver);
+    // The result page shows admin actions based on the owner's role
+    @EntityGraph(attributePaths = "owner")
+    Optional<Transaction> findWithOwnerById(UUID id);
+
+    // Keyset pagination: continues right after the last row of the previous page instead of using OFFSET,
+    // so the cost of a page stays the same no matter how long the history is
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.owner.id = :ownerId
+              AND (t.createdOn < :createdOn OR (t.createdOn = :createdOn AND t.id < :id))
+            ORDER BY t.createdOn DESC, t.id DESC
+            """)
+    List<Transaction> findAllByOwnerIdBefore(@Param("ownerId") UUID ownerId,
+                                             @Param("createdOn") LocalDateTime createdOn,
+                                             @Param("id") UUID id,
+                                             Limit limit);
+
+    // Top-N per group in a single round trip: every wallet gets its own ROW_NUMBER() partition and only the first
+    // :limit rows of each are kept. The two branches of the UNION ALL are range scans on the sender/receiver
+    // wallet indexes, instead of an OR over two columns that forces a full table scan
+    @Query(value = """
+            SELECT ranked.* FROM (
+                SELECT wt.*, ROW_NUMBER() OVER (PARTITION BY wt.wallet_ref ORDER BY wt.created_on DESC, wt.id DESC) AS rn
+                FROM (
+                    SELECT t.*, t.sender_wallet_id AS wallet_ref FROM transactions t
+                    WHERE t.sender_wallet_id IN (:walletIds) AND t.status = 'SUCCEEDED'
+                    UNION ALL
+                    SELECT t.*, t.receiver_wallet_id AS wallet_ref FROM transactions t
+                    WHERE t.receiver_wallet_id IN (:walletIds) AND t.status = 'SUCCEEDED'
+                ) wt
+            ) ranked
+            WHERE ranked.rn <= :limit
+            ORDER BY ranked.created_on DESC, ranked.id DESC
+            """, nativeQuery = true)
+    List<Transaction> findLastSucceededByWallets(@Param("walletIds") Collection<UUID> walletIds, @Param("limit") int limit);
+
+    @Query("""
+            SELECT t.id AS id, t.type AS type, t.sender AS sender, t.receiver AS receiver FROM Transaction t
+            WHERE t.id > :lastId AND t.senderWallet IS NULL AND t.receiverWallet IS NULL
+            ORDER BY t.id
+            """)
+    List<TransactionReference> findUnreferencedAfter(@Param("lastId") UUID lastId, Limit limit);
+
+    @Query("""
+            SELECT t.id AS id, t.type AS type, t.sender AS sender, t.receiver AS receiver FROM Transaction t
+            WHERE t.senderWallet IS NULL AND t.receiverWallet IS NULL
+            ORDER BY t.id
+            """)
+    List<TransactionReference> findUnreferenced(Limit limit);
+
+    @Modifying
+    @Query("""
+            UPDATE Transaction t
+            SET t.senderWallet = :senderWallet, t.receiverWallet = :receiverWallet, t.counterparty = :counterparty
+            WHERE t.id = :id
+            """)
+    void updateWalletReferences(@Param("id") UUID id,
+                                @Param("senderWallet") Wallet senderWallet,
+                                @Param("receiverWallet") Wallet receiverWallet,
+                                @Param("counterparty") String counterparty);
 }
@@ -1,40 +1,88 @@
 package app.transaction.service;
 
 import app.exception.DomainException;
+import app.notification.client.dto.NotificationRequest;
 import app.notification.service.NotificationService;
+import app.report.service.TransactionRollupService;
 import app.transaction.model.Transaction;
 import app.transaction.model.TransactionStatus;
 import app.transaction.model.TransactionType;
 import app.transaction.repository.TransactionRepository;
 import app.user.model.User;
 import app.wallet.model.Wallet;
+import app.web.dto.TransactionPage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Currency;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Slf4j
 @Service
 public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final NotificationService notificationService;
+    private final TransactionRollupService transactionRollupService;
+    @Value("${transactions.history.page-size}")
+    private int pageSize;
 
-    public TransactionService(TransactionRepository transactionRepository, NotificationService notificationService) {
+    public TransactionService(TransactionRepository transactionRepository, NotificationService notificationService,
+                              TransactionRollupService transactionRollupService) {
         this.transactionRepository = transactionRepository;
         this.notificationService = notificationService;
+        this.transactionRollupService = transactionRollupService;
     }
 
-    public Transaction createNewTransaction(User owner, String sender, String receiver, BigDecimal amount,
+    public Transaction createNewTransaction(User owner, Wallet wallet, String counterparty, BigDecimal amount,
                                             BigDecimal balanceLeft, Currency currency, TransactionType type,
                                             TransactionStatus status, String description, String failureReason) {
-        Transaction transaction = Transaction.builder()
+
+        Transaction transaction = initializeTransaction(owner, wallet, counterparty, amount, balanceLeft, currency,
+                type, status, description, failureReason);
+
+        return createNewTransactions(List.of(transaction)).get(0);
+    }
+
+    /**
+     * Persists the transactions and their notifications together, so with hibernate.jdbc.batch_size set
+     * both go to the database as batched inserts. The report rollups are updated in the same transaction.
+     */
+    public List<Transaction> createNewTransactions(List<Transaction> transactions) {
+
+        List<Transaction> savedTransactions = transactionRepository.saveAll(transactions);
+        transactionRollupService.record(savedTransactions);
+
+        notificationService.enqueueNotifications(savedTransactions.stream()
+                .map(t -> NotificationRequest.builder()
+                        .userId(t.getOwner().getId())
+                        .subject("Smart Wallet Transaction")
+                        .body(getNotificationBody(t))
+                        .build())
+                .toList());
+
+        return savedTransactions;
+    }
+
+    /**
+     * The wallet is the sender of a WITHDRAWAL and the receiver of a DEPOSIT;
+     * the other side is only known by its label (username or "Smart Wallet Ltd").
+     */
+    public Transaction initializeTransaction(User owner, Wallet wallet, String counterparty, BigDecimal amount,
+                                             BigDecimal balanceLeft, Currency currency, TransactionType type,
+                                             TransactionStatus status, String description, String failureReason) {
+        boolean isWithdrawal = type == TransactionType.WITHDRAWAL;
+
+        return Transaction.builder()
                 .owner(owner)
-                .sender(sender)
-                .receiver(receiver)
+                .sender(isWithdrawal ? wallet.getId().toString() : counterparty)
+                .receiver(isWithdrawal ? counterparty : wallet.getId().toString())
+                .senderWallet(isWithdrawal ? wallet : null)
+                .receiverWallet(isWithdrawal ? null : wallet)
+                .counterparty(counterparty)
                 .amount(amount)
                 .balanceLeft(balanceLeft)
                 .currency(currency)
@@ -44,29 +92,78 @@ public class TransactionService {
                 .failureReason(failureReason)
                 .createdOn(LocalDateTime.now())
                 .build();
+    }
 
-        String emailBody = failureReason == null
-                ? "%s transaction with amount %.2f EUR was successfully processed!".formatted(type, amount.doubleValue())
-                : "%s transaction with amount %.2f EUR failed! Reason: %s.".formatted(type, amount.doubleValue(), failureReason);
-
-        notificationService.sendNotification(owner.getId(), "Smart Wallet Transaction", emailBody);
+    private String getNotificationBody(Transaction transaction) {
 
-        return transactionRepository.save(transaction);
+        return transaction.getFailureReason() == null
+                ? "%s transaction with amount %.2f EUR was successfully processed!".formatted(
+                        transaction.getType(), transaction.getAmount().doubleValue())
+                : "%s transaction with amount %.2f EUR failed! Reason: %s.".formatted(
+                        transaction.getType(), transaction.getAmount().doubleValue(), transaction.getFailureReason());
     }
 
-    public List<Transaction> getAllByOwnerId(UUID ownerId) {
-        return transactionRepository.findAllByOwnerIdOrderByCreatedOnDesc(ownerId);
+    @Transactional(readOnly = true)
+    public TransactionPage getPageByOwnerId(UUID ownerId, LocalDateTime cursorCreatedOn, UUID cursorId) {
+
+        // One extra row is fetched only to find out whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        List<Transaction> transactions = cursorCreatedOn == null || cursorId == null
+                ? transactionRepository.findAllByOwnerIdOrderByCreatedOnDescIdDesc(ownerId, limit)
+                : transactionRepository.findAllByOwnerIdBefore(ownerId, cursorCreatedOn, cursorId, limit);
+
+        boolean hasNext = transactions.size() > pageSize;
+        if (hasNext) {
+            transactions = transactions.subList(0, pageSize);
+        }
+
+        Transaction last = transactions.isEmpty() ? null : transactions.get(transactions.size() - 1);
+
+        return TransactionPage.builder()
+                .transactions(transactions)
+                .hasNext(hasNext)
+                .nextCreatedOn(hasNext ? last.getCreatedOn() : null)
+                .nextId(hasNext ? last.getId() : null)
+                .build();
     }
 
+    @Transactional(readOnly = true)
     public Transaction getById(UUID id) {
-        return transactionRepository.findById(id)
+        return transactionRepository.findWithOwnerById(id)
                 .orElseThrow(() -> new DomainException("Transaction with id [%s] does not exist.".formatted(id)));
     }
 
-    public List<Transaction> getAllTransactionsByWallet(Wallet wallet) {
+    public Map<UUID, List<Transaction>> getLastSucceededTransactionsByWallets(List<Wallet> wallets, int limit) {
+
+        Map<UUID, List<Transaction>> transactionsByWalletId = new LinkedHashMap<>();
+        wallets.forEach(w -> transactionsByWalletId.put(w.getId(), new ArrayList<>()));
+
+        if (wallets.isEmpty()) {
+            return transactionsByWalletId;
+        }
+
+        // Rows come back newest first; a row referencing two of the given wallets is returned once per side
+        Set<Transaction> transactions = new LinkedHashSet<>(
+                transactionRepository.findLastSucceededByWallets(transactionsByWalletId.keySet(), limit));
+
+        for (Transaction transaction : transactions) {
+            addIfBelowLimit(transactionsByWalletId, transaction.getSenderWallet(), transaction, limit);
+            addIfBelowLimit(transactionsByWalletId, transaction.getReceiverWallet(), transaction, limit);
+        }
+
+        return transactionsByWalletId;
+    }
+
+    private void addIfBelowLimit(Map<UUID, List<Transaction>> transactionsByWalletId, Wallet wallet, Transaction transaction, int limit) {
 
-        String walletId = wallet.getId().toString();
+        if (wallet == null) {
+            return;
+        }
 
-        return transactionRepository.findAllBySenderOrReceiverOrderByCreatedOnDesc(walletId, walletId);
+        // getId() on a lazy proxy does not initialize it
+        List<Transaction> walletTransactions = transactionsByWalletId.get(wallet.getId());
+        if (walletTransactions != null && walletTransactions.size() < limit) {
+            walletTransactions.add(transaction);
+        }
     }
 }
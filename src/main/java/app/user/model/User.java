@@ -1,9 +1,12 @@
 package app.user.model;
 
+import app.persistence.TimeOrderedUuid;
 import app.subscription.model.Subscription;
 import app.wallet.model.Wallet;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -16,10 +19,17 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "users")
+// Admin directory: filters on role/status/country, newest first; username prefix search uses the unique index
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created_on", columnList = "created_on DESC, id DESC"),
+        @Index(name = "idx_users_role_active_created_on", columnList = "role, is_active, created_on DESC, id DESC"),
+        @Index(name = "idx_users_country_created_on", columnList = "country, created_on DESC, id DESC")
+})
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
     @Column(unique = true, nullable = false)
@@ -57,11 +67,12 @@ public class User {
     @Column(nullable = false)
     private LocalDateTime updatedOn;
 
-    @OneToMany(mappedBy = "owner", targetEntity = Subscription.class, fetch = FetchType.EAGER)
+    // Both collections are lazy - views that need them load them through the entity graphs in UserRepository
+    @OneToMany(mappedBy = "owner", targetEntity = Subscription.class)
     @OrderBy("createdOn DESC")
     private List<Subscription> subscriptions = new ArrayList<>();
 
-    @OneToMany(mappedBy = "owner", targetEntity = Wallet.class, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "owner", targetEntity = Wallet.class)
     @OrderBy("createdOn ASC")
     private List<Wallet> wallets = new ArrayList<>();
 }
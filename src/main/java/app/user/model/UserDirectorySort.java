@@ -0,0 +1,5 @@
+package app.user.model;
+
+public enum UserDirectorySort {
+    NEWEST, USERNAME
+}
@@ -1,14 +1,59 @@
 package app.user.repository;
 
+import app.user.model.Country;
+import app.user.model.Role;
 import app.user.model.User;
+import app.web.dto.UserSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
+
+    @EntityGraph(attributePaths = "wallets")
+    Optional<User> findWithWalletsById(UUID id);
+
+    @EntityGraph(attributePaths = "subscriptions")
+    Optional<User> findWithSubscriptionsById(UUID id);
+
+    // Ids only - a Slice reads one row past the page instead of counting the whole table.
+    // A null filter matches everything; usernamePrefix is already a LIKE pattern escaped with '!'
+    @Query("""
+            SELECT u.id FROM User u
+            WHERE (:role IS NULL OR u.role = :role)
+              AND (:active IS NULL OR u.isActive = :active)
+              AND (:country IS NULL OR u.country = :country)
+              AND (:usernamePrefix IS NULL OR u.username LIKE :usernamePrefix ESCAPE '!')
+            """)
+    Slice<UUID> findDirectoryIds(@Param("role") Role role,
+                                 @Param("active") Boolean active,
+                                 @Param("country") Country country,
+                                 @Param("usernamePrefix") String usernamePrefix,
+                                 Pageable pageable);
+
+    @Query("""
+            SELECT new app.web.dto.UserSummary(u.id, u.username, u.email, u.role, u.country, u.isActive, u.createdOn)
+            FROM User u WHERE u.id IN :ids
+            """)
+    List<UserSummary> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Walks all user ids in primary key order, for jobs that process users in chunks
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<UUID> findIds(Limit limit);
+
+    @Query("SELECT u.id FROM User u WHERE u.id > :lastId ORDER BY u.id")
+    List<UUID> findIdsAfter(@Param("lastId") UUID lastId, Limit limit);
 }
@@ -0,0 +1,95 @@
+package app.user.service;
+
+import app.config.CacheConfiguration;
+import app.user.model.UserDirectorySort;
+import app.user.repository.UserRepository;
+import app.web.dto.UserDirectoryFilter;
+import app.web.dto.UserDirectoryPage;
+import app.web.dto.UserSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Admin user directory. Pages are cached per filter as id lists and the rows per user, so a status or role
+ * switch only evicts that user's row (see {@link UserService}). Which users a filtered page contains may lag
+ * behind such a switch until the page is refreshed - "caches.specs.user-directory-pages" bounds how long.
+ */
+@Service
+public class UserDirectoryService {
+    private final UserRepository userRepository;
+    private final Cache pages;
+    private final Cache summaries;
+    @Value("${users.directory.page-size}")
+    private int pageSize;
+
+    public UserDirectoryService(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.pages = cacheManager.getCache(CacheConfiguration.USER_DIRECTORY_PAGES_CACHE);
+        this.summaries = cacheManager.getCache(CacheConfiguration.USER_SUMMARIES_CACHE);
+    }
+
+    public UserDirectoryPage getPage(UserDirectoryFilter filter) {
+
+        Slice<UUID> ids = pages.get(filter, () -> loadPageIds(filter));
+
+        Map<UUID, UserSummary> summariesById = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            UserSummary summary = summaries.get(id, UserSummary.class);
+            if (summary == null) {
+                missing.add(id);
+            } else {
+                summariesById.put(id, summary);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            userRepository.findSummariesByIdIn(missing).forEach(summary -> {
+                summaries.put(summary.getId(), summary);
+                summariesById.put(summary.getId(), summary);
+            });
+        }
+
+        // Page order comes from the cached ids; a user deleted since then simply drops out
+        List<UserSummary> users = ids.stream()
+                .map(summariesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return UserDirectoryPage.builder()
+                .users(users)
+                .page(filter.getPage())
+                .hasNext(ids.hasNext())
+                .build();
+    }
+
+    // Also the refresh loader of the "user-directory-pages" cache, see CacheConfiguration
+    public Slice<UUID> loadPageIds(UserDirectoryFilter filter) {
+
+        Sort sort = filter.getSort() == UserDirectorySort.USERNAME
+                ? Sort.by("username")
+                : Sort.by(Sort.Direction.DESC, "createdOn", "id");
+
+        return userRepository.findDirectoryIds(filter.getRole(), filter.getActive(), filter.getCountry(),
+                toPrefixPattern(filter.getUsername()), PageRequest.of(Math.max(filter.getPage(), 0), pageSize, sort));
+    }
+
+    private String toPrefixPattern(String username) {
+
+        if (username == null || username.isBlank()) {
+            return null;
+        }
+
+        return username.strip()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
+    }
+}
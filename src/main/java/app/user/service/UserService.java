@@ -15,13 +15,13 @@ import app.web.dto.RegisterRequest;
 import app.web.dto.UserEditRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -36,17 +36,27 @@ public class UserService implements UserDetailsService {
     private final WalletService walletService;
     private final PasswordEncoder passwordEncoder;
     private final NotificationService notificationService;
+    private final UserSnapshotCache userSnapshotCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
 
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
-                       SubscriptionService subscriptionService, WalletService walletService, NotificationService notificationService) {
+                       SubscriptionService subscriptionService, WalletService walletService, NotificationService notificationService,
+                       UserSnapshotCache userSnapshotCache, TransactionTemplate transactionTemplate) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.subscriptionService = subscriptionService;
         this.walletService = walletService;
         this.notificationService = notificationService;
+        this.userSnapshotCache = userSnapshotCache;
+        // Snapshots are page reads - read-only, so the replica can serve them
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
-    @CacheEvict(value = "users", allEntries = true)
+    // A new user can land on any directory page
+    @CacheEvict(value = "user-directory-pages", allEntries = true)
     @Transactional
     public User register(RegisterRequest registerRequest) {
         Optional<User> optionalUser = userRepository.findByUsername(registerRequest.getUsername());
@@ -62,6 +72,8 @@ public class UserService implements UserDetailsService {
         Wallet standardWallet = walletService.initializeFirstWallet(user);
         user.setWallets(List.of(standardWallet));
 
+        userSnapshotCache.evict(user.getId());
+
         // Persist new notification preference with isEnabled = false
         notificationService.saveNotificationPreference(user.getId(), false, null);
 
@@ -71,22 +83,30 @@ public class UserService implements UserDetailsService {
         return user;
     }
 
-    @CacheEvict(value = "users", allEntries = true)
+    // The notification preference is a Feign call - it runs after the user's transaction has committed instead of
+    // holding a connection and the user row lock for the length of an HTTP round trip
+    @CacheEvict(value = "user-summaries", key = "#userId")
     public void editUserDetails(UUID userId, UserEditRequest userEditRequest) {
-        User user = getById(userId);
 
-        if (user.getEmail() != null && userEditRequest.getEmail() == null) {
+        String previousEmail = transactionTemplate.execute(status -> {
+            User user = getById(userId);
+            String email = user.getEmail();
+
+            user.setFirstName(userEditRequest.getFirstName());
+            user.setLastName(userEditRequest.getLastName());
+            user.setEmail(userEditRequest.getEmail());
+            user.setProfilePicture(userEditRequest.getProfilePicture());
+
+            userRepository.save(user);
+            return email;
+        });
+        userSnapshotCache.evict(userId);
+
+        if (previousEmail != null && userEditRequest.getEmail() == null) {
             notificationService.saveNotificationPreference(userId, false, null);
         } else if (userEditRequest.getEmail() != null) {
             notificationService.saveNotificationPreference(userId, true, userEditRequest.getEmail());
         }
-
-        user.setFirstName(userEditRequest.getFirstName());
-        user.setLastName(userEditRequest.getLastName());
-        user.setEmail(userEditRequest.getEmail());
-        user.setProfilePicture(userEditRequest.getProfilePicture());
-
-        userRepository.save(user);
     }
 
     private User initializeUser(RegisterRequest registerRequest) {
@@ -103,30 +123,63 @@ public class UserService implements UserDetailsService {
                 .build();
     }
 
-    @Cacheable("users")
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
-    }
-
+    // Only the user row - wallets and subscriptions are lazy, views that show them use the methods below.
+    // findById is a read-only repository method: outside a read-write transaction a request may read it from the
+    // replica, so callers that modify and save the user must be @Transactional
     public User getById(UUID id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new DomainException("User with id [%s] does not exist.".formatted(id)));
     }
 
-    @CacheEvict(value = "users", allEntries = true)
+    public User getByIdWithWallets(UUID id) {
+        return userRepository.findWithWalletsById(id)
+                .orElseThrow(() -> new DomainException("User with id [%s] does not exist.".formatted(id)));
+    }
+
+    public User getByIdWithSubscriptions(UUID id) {
+        return userRepository.findWithSubscriptionsById(id)
+                .orElseThrow(() -> new DomainException("User with id [%s] does not exist.".formatted(id)));
+    }
+
+    /**
+     * The user with wallets and subscriptions, for pages only - the result is a shared detached snapshot, so
+     * don't modify it. Served from {@link UserSnapshotCache}; anything changing what it shows must evict the user.
+     */
+    public User getSnapshotById(UUID id) {
+        return userSnapshotCache.get(id, this::getByIdWithWalletsAndSubscriptions);
+    }
+
+    /**
+     * Two statements, one per collection: fetching both bags in one join would multiply the rows.
+     * The second query runs in the same session and fills in the subscriptions of the already loaded user.
+     */
+    private User getByIdWithWalletsAndSubscriptions(UUID id) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            User user = getByIdWithWallets(id);
+            userRepository.findWithSubscriptionsById(id);
+
+            return user;
+        });
+    }
+
+    @CacheEvict(value = "user-summaries", key = "#userId")
+    @Transactional
     public void switchStatus(UUID userId) {
         User user = getById(userId);
         user.setActive(!user.isActive());
 
         userRepository.save(user);
+        userSnapshotCache.evict(userId);
     }
 
-    @CacheEvict(value = "users", allEntries = true)
+    @CacheEvict(value = "user-summaries", key = "#userId")
+    @Transactional
     public void switchRole(UUID userId) {
         User user = getById(userId);
         user.setRole(user.getRole() == Role.USER ? Role.ADMIN : Role.USER);
 
         userRepository.save(user);
+        userSnapshotCache.evict(userId);
     }
 
     @Override
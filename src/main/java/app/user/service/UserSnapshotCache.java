@@ -0,0 +1,105 @@
+package app.user.service;
+
+import app.config.CacheConfiguration;
+import app.user.model.User;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Detached snapshots of a user with wallets and subscriptions, as the pages show them.
+ * <p>
+ * Two levels: a memo bound to the current HTTP request, so one request never loads the same user twice, and the
+ * per-node "user-snapshots" cache with a short TTL. Everything that changes a user, a wallet or a subscription
+ * evicts the owner explicitly; the TTL only bounds how long other nodes' changes stay invisible here.
+ */
+@Component
+public class UserSnapshotCache {
+    private static final String REQUEST_MEMO_ATTRIBUTE = UserSnapshotCache.class.getName() + ".memo";
+    // Bumped on every eviction - a load that overlapped one may have read the old state and is not cached
+    private final AtomicLong evictions = new AtomicLong();
+    private final Cache snapshots;
+
+    public UserSnapshotCache(CacheManager cacheManager) {
+        this.snapshots = cacheManager.getCache(CacheConfiguration.USER_SNAPSHOTS_CACHE);
+    }
+
+    public User get(UUID userId, Function<UUID, User> loader) {
+
+        Map<UUID, User> memo = requestMemo();
+        User user = memo == null ? null : memo.get(userId);
+        if (user != null) {
+            return user;
+        }
+
+        user = snapshots.get(userId, User.class);
+        if (user == null) {
+            long evictionsBeforeLoad = evictions.get();
+            user = loader.apply(userId);
+            if (evictions.get() == evictionsBeforeLoad) {
+                snapshots.put(userId, user);
+            }
+        }
+
+        if (memo != null) {
+            memo.put(userId, user);
+        }
+        return user;
+    }
+
+    /**
+     * Inside a transaction the snapshot is dropped again after it completes, otherwise a concurrent request
+     * could cache the state from before the commit.
+     */
+    public void evict(UUID userId) {
+
+        evictNow(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(userId);
+                }
+            });
+        }
+    }
+
+    private void evictNow(UUID userId) {
+
+        evictions.incrementAndGet();
+        snapshots.evict(userId);
+
+        Map<UUID, User> memo = requestMemo();
+        if (memo != null) {
+            memo.remove(userId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<UUID, User> requestMemo() {
+
+        // Schedulers and @Async listeners have no request
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<UUID, User> memo = (Map<UUID, User>) attributes.getAttribute(REQUEST_MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            attributes.setAttribute(REQUEST_MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+}
@@ -1,8 +1,12 @@
 package app.wallet.model;
 
+import app.persistence.TimeOrderedUuid;
 import app.user.model.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -18,19 +22,30 @@ import java.util.UUID;
 @Table(name = "wallets")
 public class Wallet {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private WalletStatus status;
 
-    @Column(nullable = false)
+    // Only ever changed through the conditional UPDATEs in WalletRepository, never by saving the entity
+    @Column(nullable = false, updatable = false)
     private BigDecimal balance;
 
+    // > 0 turns on sharded mode: credits land on one of this many wallet_balance_shards rows instead of
+    // this one, so a hot receiving wallet doesn't serialise every transfer on a single row
+    @Basic
+    private int shardCount;
+
+    @Formula("(CASE WHEN shard_count > 0 THEN (SELECT COALESCE(SUM(s.balance), 0) FROM wallet_balance_shards s WHERE s.wallet_id = id) ELSE 0 END)")
+    private BigDecimal shardedBalance;
+
     @Column(nullable = false)
     private Currency currency;
 
@@ -39,4 +54,12 @@ public class Wallet {
 
     @Column(nullable = false)
     private LocalDateTime updatedOn;
+
+    public BigDecimal getBalance() {
+        return shardedBalance == null ? balance : balance.add(shardedBalance);
+    }
+
+    public boolean isSharded() {
+        return shardCount > 0;
+    }
 }
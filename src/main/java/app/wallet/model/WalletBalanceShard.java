@@ -0,0 +1,37 @@
+package app.wallet.model;
+
+import app.persistence.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "wallet_balance_shards", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_wallet_balance_shards_wallet_shard", columnNames = {"wallet_id", "shard_index"})
+})
+public class WalletBalanceShard {
+    @Id
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private Wallet wallet;
+
+    @Column(nullable = false)
+    private int shardIndex;
+
+    // Same rule as Wallet.balance - only moved by conditional UPDATEs
+    @Column(nullable = false, updatable = false)
+    private BigDecimal balance;
+}
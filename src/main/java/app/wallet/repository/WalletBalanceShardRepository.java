@@ -0,0 +1,39 @@
+package app.wallet.repository;
+
+import app.wallet.model.WalletBalanceShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WalletBalanceShardRepository extends JpaRepository<WalletBalanceShard, UUID> {
+
+    // The status subquery is a current read of the share-locked wallet row, not the caller's possibly stale entity
+    @Modifying
+    @Query(value = """
+            UPDATE wallet_balance_shards SET balance = balance + :amount
+            WHERE wallet_id = :walletId AND shard_index = :shardIndex
+              AND EXISTS (SELECT 1 FROM wallets w WHERE w.id = :walletId AND w.status = 'ACTIVE')
+            """, nativeQuery = true)
+    int credit(@Param("walletId") UUID walletId, @Param("shardIndex") int shardIndex, @Param("amount") BigDecimal amount);
+
+    @Query(value = "SELECT balance FROM wallet_balance_shards WHERE wallet_id = :walletId FOR UPDATE", nativeQuery = true)
+    List<BigDecimal> lockBalancesByWalletId(@Param("walletId") UUID walletId);
+
+    @Modifying
+    @Query(value = "UPDATE wallet_balance_shards SET balance = 0 WHERE wallet_id = :walletId", nativeQuery = true)
+    int resetBalancesByWalletId(@Param("walletId") UUID walletId);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM WalletBalanceShard s WHERE s.wallet.id = :walletId")
+    BigDecimal sumBalanceByWalletId(@Param("walletId") UUID walletId);
+
+    @Modifying
+    @Query("DELETE FROM WalletBalanceShard s WHERE s.wallet.id = :walletId")
+    void deleteAllByWalletId(@Param("walletId") UUID walletId);
+}
@@ -0,0 +1,11 @@
+package app.wallet.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface WalletBalanceView {
+
+    UUID getId();
+
+    BigDecimal getBalance();
+}
@@ -2,17 +2,77 @@ package app.wallet.repository;
 
 import app.user.model.User;
 import app.wallet.model.Wallet;
+import app.wallet.model.WalletStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Repository
-public interface WalletRepository extends JpaRepository<Wallet, UUID> {
+public interface WalletRepository extends JpaRepository<Wallet, UUID>, WalletRepositoryCustom {
     List<Wallet> findAllByOwnerUsername(String username);
 
+    @Query("""
+            SELECT w FROM Wallet w JOIN FETCH w.owner o
+            WHERE o.username IN :usernames AND w.status = :status
+            ORDER BY w.createdOn
+            """)
+    List<Wallet> findAllByOwnerUsernameInAndStatus(@Param("usernames") Collection<String> usernames, @Param("status") WalletStatus status);
+
     Optional<Wallet> findByIdAndOwnerId(UUID id, UUID ownerId);
+
+    // Balance changes are single conditional statements - the row lock is taken and released by the UPDATE itself
+    // and the affected-row count tells whether the debit/credit happened, so there is no read-modify-write race
+    @Modifying
+    @Query(value = """
+            UPDATE wallets SET balance = balance - :amount, updated_on = :now
+            WHERE id = :id AND status = 'ACTIVE' AND balance >= :amount
+            """, nativeQuery = true)
+    int debit(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = """
+            UPDATE wallets SET balance = balance + :amount, updated_on = :now
+            WHERE id = :id AND status = 'ACTIVE'
+            """, nativeQuery = true)
+    int credit(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    // Unconditional - only for moving money that already belongs to the wallet (shards, refunds)
+    @Modifying
+    @Query(value = "UPDATE wallets SET balance = balance + :amount WHERE id = :id", nativeQuery = true)
+    int addToBalance(@Param("id") UUID id, @Param("amount") BigDecimal amount);
+
+    @Query(value = "SELECT 1 FROM wallets WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Integer lockById(@Param("id") UUID id);
+
+    // Current status under the row lock - the managed entity may have been loaded before a concurrent switch
+    @Query(value = "SELECT status FROM wallets WHERE id = :id FOR UPDATE", nativeQuery = true)
+    WalletStatus lockStatusById(@Param("id") UUID id);
+
+    // Shared row lock (FOR SHARE on MySQL) - held by credits to the wallet's shards, so they run side by side
+    // while consolidation's FOR UPDATE waits for them
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT w FROM Wallet w WHERE w.id = :id")
+    Optional<Wallet> lockSharedById(@Param("id") UUID id);
+
+    // Rows are locked in primary key order, the same order transferFunds uses
+    @Query(value = "SELECT 1 FROM wallets WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Integer> lockAllById(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT w.id AS id, w.balance AS balance FROM Wallet w WHERE w.id IN :ids")
+    List<WalletBalanceView> findBalancesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT w.balance FROM Wallet w WHERE w.id = :id")
+    BigDecimal findBalanceById(@Param("id") UUID id);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.id IN :ids")
+    Set<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
 }
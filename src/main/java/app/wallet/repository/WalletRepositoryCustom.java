@@ -0,0 +1,15 @@
+package app.wallet.repository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface WalletRepositoryCustom {
+
+    /**
+     * Credits many wallets with one JDBC batch. Returns the ids of the wallets that were NOT credited
+     * because they are no longer active.
+     */
+    Set<UUID> creditAll(Map<UUID, BigDecimal> amountsByWalletId);
+}
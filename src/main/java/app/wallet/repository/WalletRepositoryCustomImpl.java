@@ -0,0 +1,54 @@
+package app.wallet.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class WalletRepositoryCustomImpl implements WalletRepositoryCustom {
+    private static final String CREDIT_SQL =
+            "UPDATE wallets SET balance = balance + ?, updated_on = ? WHERE id = ? AND status = 'ACTIVE'";
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<UUID> creditAll(Map<UUID, BigDecimal> amountsByWalletId) {
+
+        if (amountsByWalletId.isEmpty()) {
+            return Set.of();
+        }
+
+        List<UUID> walletIds = new ArrayList<>(amountsByWalletId.keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // Sent as one multi-statement round trip when the MySQL URL has rewriteBatchedStatements=true
+        int[] updatedRows = jdbcTemplate.batchUpdate(CREDIT_SQL, walletIds, walletIds.size(), (ps, walletId) -> {
+            ps.setBigDecimal(1, amountsByWalletId.get(walletId));
+            ps.setTimestamp(2, now);
+            ps.setBytes(3, toBytes(walletId));
+        })[0];
+
+        Set<UUID> notCredited = new HashSet<>();
+        for (int i = 0; i < updatedRows.length; i++) {
+            if (updatedRows[i] == 0) {
+                notCredited.add(walletIds.get(i));
+            }
+        }
+
+        return notCredited;
+    }
+
+    // Same layout Hibernate uses for UUID ids stored as BINARY(16)
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,105 @@
+package app.wallet.service;
+
+import app.exception.DomainException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process striped locks keyed by wallet id. Two wallets are always locked in ascending stripe order
+ * (and a shared stripe only once), so two opposite transfers between the same wallets can never deadlock.
+ */
+@Component
+public class WalletLockManager {
+    private final ReentrantLock[] stripes;
+    private final Duration timeout;
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    public WalletLockManager(@Value("${wallets.lock.stripes}") int stripeCount,
+                             @Value("${wallets.lock.timeout}") Duration timeout,
+                             MeterRegistry meterRegistry) {
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeout = timeout;
+        this.waitTimer = Timer.builder("wallet.lock.wait")
+                .description("Time spent waiting for wallet stripe locks")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("wallet.lock.timeouts")
+                .description("Wallet stripe lock acquisitions that timed out")
+                .register(meterRegistry);
+    }
+
+    public Lease lock(UUID firstWalletId, UUID secondWalletId) {
+
+        int first = stripeOf(firstWalletId);
+        int second = stripeOf(secondWalletId);
+
+        ReentrantLock lower = stripes[Math.min(first, second)];
+        ReentrantLock higher = first == second ? null : stripes[Math.max(first, second)];
+
+        long startedAt = System.nanoTime();
+        try {
+            acquire(lower, startedAt);
+            try {
+                if (higher != null) {
+                    acquire(higher, startedAt);
+                }
+            } catch (RuntimeException e) {
+                lower.unlock();
+                throw e;
+            }
+        } finally {
+            waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+
+        return new Lease(lower, higher);
+    }
+
+    private void acquire(ReentrantLock lock, long startedAt) {
+
+        long remaining = timeout.toNanos() - (System.nanoTime() - startedAt);
+        try {
+            if (!lock.tryLock(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                timeoutCounter.increment();
+                throw new DomainException("Timed out after [%s] waiting for wallet lock.".formatted(timeout));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DomainException("Interrupted while waiting for wallet lock.", e);
+        }
+    }
+
+    private int stripeOf(UUID walletId) {
+        int hash = walletId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    public static final class Lease implements AutoCloseable {
+        private final ReentrantLock lower;
+        private final ReentrantLock higher;
+
+        private Lease(ReentrantLock lower, ReentrantLock higher) {
+            this.lower = lower;
+            this.higher = higher;
+        }
+
+        @Override
+        public void close() {
+            if (higher != null) {
+                higher.unlock();
+            }
+            lower.unlock();
+        }
+    }
+}
@@ -8,34 +8,67 @@ import app.transaction.model.TransactionStatus;
 import app.transaction.model.TransactionType;
 import app.transaction.service.TransactionService;
 import app.user.model.User;
+import app.user.repository.UserRepository;
+import app.user.service.UserSnapshotCache;
 import app.wallet.model.Wallet;
+import app.wallet.model.WalletBalanceShard;
 import app.wallet.model.WalletStatus;
+import app.wallet.repository.WalletBalanceShardRepository;
 import app.wallet.repository.WalletRepository;
-import app.web.dto.PaymentNotificationEvent;
-import app.web.dto.TransferRequest;
+import app.web.dto.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class WalletService {
     private static final String SMART_WALLET_LTD = "Smart Wallet Ltd";
+    // Byte order of the BINARY(16) primary key, i.e. the order "ORDER BY id FOR UPDATE" locks rows in
+    private static final Comparator<UUID> ROW_LOCK_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
     private final WalletRepository walletRepository;
     private final TransactionService transactionService;
     private final ApplicationEventPublisher eventPublisher;
-
-    public WalletService(WalletRepository walletRepository, TransactionService transactionService, ApplicationEventPublisher eventPublisher) {
+    private final WalletLockManager walletLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletBalanceShardRepository walletBalanceShardRepository;
+    private final UserSnapshotCache userSnapshotCache;
+    private final UserRepository userRepository;
+    private final AtomicInteger shardCursor = new AtomicInteger();
+    @Value("${wallets.last-transactions.count}")
+    private int lastTransactionsCount;
+    @Value("${wallets.balance-shards.max-count}")
+    private int maxShardCount;
+    @Value("${transfers.bulk.max-lines}")
+    private int maxBulkTransferLines;
+
+    public WalletService(WalletRepository walletRepository, TransactionService transactionService, ApplicationEventPublisher eventPublisher,
+                         WalletLockManager walletLockManager, TransactionTemplate transactionTemplate,
+                         WalletBalanceShardRepository walletBalanceShardRepository, UserSnapshotCache userSnapshotCache,
+                         UserRepository userRepository) {
+        this.userRepository = userRepository;
         this.walletRepository = walletRepository;
+        this.walletBalanceShardRepository = walletBalanceShardRepository;
+        this.userSnapshotCache = userSnapshotCache;
         this.transactionService = transactionService;
         this.eventPublisher = eventPublisher;
+        this.walletLockManager = walletLockManager;
+        this.transactionTemplate = transactionTemplate;
     }
 
+    @Transactional
     public void unlockNewWallet(User user) {
 
         List<Wallet> allUserWallets = walletRepository.findAllByOwnerUsername(user.getUsername());
@@ -61,6 +94,7 @@ public class WalletService {
                 .build();
 
         walletRepository.save(newWallet);
+        userSnapshotCache.evict(user.getId());
     }
 
     public Wallet initializeFirstWallet(User user) {
@@ -71,6 +105,7 @@ public class WalletService {
         }
 
         Wallet wallet = walletRepository.save(initializeWallet(user));
+        userSnapshotCache.evict(user.getId());
         log.info("Successfully created new wallet with id [%s] and balance [%.2f]".formatted(
                 wallet.getId(), wallet.getBalance()
         ));
@@ -82,77 +117,263 @@ public class WalletService {
         Wallet wallet = getById(walletId);
         String transactionDescription = "Top up %.2f".formatted(amount.doubleValue());
 
-        if (wallet.getStatus() == WalletStatus.INACTIVE) {
-            return transactionService.createNewTransaction(wallet.getOwner(), SMART_WALLET_LTD, walletId.toString(),
+        boolean isCredited = credit(wallet, amount);
+        refreshBalance(wallet);
+
+        if (!isCredited) {
+            return transactionService.createNewTransaction(wallet.getOwner(), wallet, SMART_WALLET_LTD,
                     amount, wallet.getBalance(), wallet.getCurrency(), TransactionType.DEPOSIT,
                     TransactionStatus.FAILED, transactionDescription, "Inactive wallet");
         }
 
-        wallet.setBalance(wallet.getBalance().add(amount));
-        wallet.setUpdatedOn(LocalDateTime.now());
-        walletRepository.save(wallet);
-
-        return transactionService.createNewTransaction(wallet.getOwner(), SMART_WALLET_LTD, walletId.toString(),
+        return transactionService.createNewTransaction(wallet.getOwner(), wallet, SMART_WALLET_LTD,
                 amount, wallet.getBalance(), wallet.getCurrency(), TransactionType.DEPOSIT,
                 TransactionStatus.SUCCEEDED, transactionDescription, null);
     }
 
-    @Transactional
-    public Transaction transferFunds(User sender, TransferRequest transferRequest) {
-        Wallet senderWallet = getById(transferRequest.getFromWalletId());
-        String transferDescription = "Transfer from %s to %s for %.2f EUR".formatted(
-                sender.getUsername(), transferRequest.getToUsername(), transferRequest.getAmount());
+    /**
+     * The sender is loaded inside the transfer's transaction - a page snapshot of the user may be stale or come from
+     * the replica, so money operations never take one.
+     */
+    public Transaction transferFunds(UUID senderId, TransferRequest transferRequest) {
+        UUID senderWalletId = transferRequest.getFromWalletId();
         Optional<Wallet> optionalReceiverWallet = walletRepository.findAllByOwnerUsername(transferRequest.getToUsername()).stream()
                 .filter(w -> w.getStatus() == WalletStatus.ACTIVE)
                 .findFirst();
 
         if (optionalReceiverWallet.isEmpty()) {
+            return transactionTemplate.execute(status -> executeTransfer(senderId, transferRequest, null));
+        }
+
+        // Both stripes are held until the DB transaction has committed, so same-pair transfers queue up in memory
+        // instead of piling up on the wallet rows. A sharded receiver is not striped and its row only share-locked,
+        // so transfers into it run side by side - that's the point of sharding it
+        Wallet receiver = optionalReceiverWallet.get();
+        UUID receiverWalletId = receiver.getId();
+        UUID receiverStripeKey = receiver.isSharded() ? senderWalletId : receiverWalletId;
+        try (WalletLockManager.Lease ignored = walletLockManager.lock(senderWalletId, receiverStripeKey)) {
+            return transactionTemplate.execute(status -> executeTransfer(senderId, transferRequest, receiverWalletId));
+        }
+    }
+
+    private Transaction executeTransfer(UUID senderId, TransferRequest transferRequest, UUID receiverWalletId) {
+        User sender = getUserById(senderId);
+        Wallet senderWallet = getById(transferRequest.getFromWalletId());
+        String transferDescription = "Transfer from %s to %s for %.2f EUR".formatted(
+                sender.getUsername(), transferRequest.getToUsername(), transferRequest.getAmount());
+
+        if (receiverWalletId == null) {
             return transactionService.createNewTransaction(
-                    sender, senderWallet.getId().toString(), transferRequest.getToUsername(),
+                    sender, senderWallet, transferRequest.getToUsername(),
                     transferRequest.getAmount(), senderWallet.getBalance(), senderWallet.getCurrency(), TransactionType.WITHDRAWAL,
                     TransactionStatus.FAILED, transferDescription, "Invalid criteria for transfer");
         }
 
+        Wallet receiverWallet = getById(receiverWalletId);
+        if (receiverWallet.isSharded()) {
+            lockRowsInCanonicalOrder(List.of(senderWallet.getId()), List.of(receiverWalletId));
+        } else {
+            lockRowsInCanonicalOrder(List.of(senderWallet.getId(), receiverWalletId), List.of());
+        }
+
         Transaction withdrawal =
                 charge(sender, senderWallet.getId(), transferRequest.getAmount(), transferDescription);
         if (withdrawal.getStatus() == TransactionStatus.FAILED) {
             return withdrawal;
         }
 
-        Wallet receiverWallet = optionalReceiverWallet.get();
-        receiverWallet.setBalance(receiverWallet.getBalance().add(transferRequest.getAmount()));
-        receiverWallet.setUpdatedOn(LocalDateTime.now());
-        walletRepository.save(receiverWallet);
+        if (!credit(receiverWallet, transferRequest.getAmount())) {
+            // Receiver was deactivated after it was selected - rolls back the debit above
+            throw new DomainException("Wallet with id [%s] can't receive transfers.".formatted(receiverWallet.getId()));
+        }
+        refreshBalance(receiverWallet);
         transactionService.createNewTransaction(
-                receiverWallet.getOwner(), sender.getUsername(), receiverWallet.getId().toString(),
+                receiverWallet.getOwner(), receiverWallet, sender.getUsername(),
                 transferRequest.getAmount(), receiverWallet.getBalance(), receiverWallet.getCurrency(), TransactionType.DEPOSIT,
                 TransactionStatus.SUCCEEDED, transferDescription, null);
 
         return withdrawal;
     }
 
+    /**
+     * The one lock order for wallets: all wallet rows of the transaction up front, in primary key order, and a wallet's
+     * row always before its shard rows. Rows whose balance column changes are locked exclusively, sharded receivers
+     * shared. Two transactions can then never hold locks the other one waits for - including two sharded wallets
+     * paying each other, and credits racing the consolidation of the same wallet.
+     */
+    private void lockRowsInCanonicalOrder(Collection<UUID> exclusiveWalletIds, Collection<UUID> sharedWalletIds) {
+
+        if (sharedWalletIds.isEmpty()) {
+            walletRepository.lockAllById(exclusiveWalletIds);
+            return;
+        }
+
+        Set<UUID> walletIds = new TreeSet<>(ROW_LOCK_ORDER);
+        walletIds.addAll(exclusiveWalletIds);
+        walletIds.addAll(sharedWalletIds);
+        for (UUID walletId : walletIds) {
+            if (exclusiveWalletIds.contains(walletId)) {
+                walletRepository.lockById(walletId);
+            } else {
+                walletRepository.lockSharedById(walletId);
+            }
+        }
+    }
+
+    /**
+     * Pays many recipients from one wallet: receivers are resolved with one query, the source is debited once
+     * for the total, and the receiver credits and deposit transactions are written as JDBC batches.
+     */
+    @Transactional
+    public BulkTransferResult bulkTransfer(UUID senderId, BulkTransferRequest bulkTransferRequest) {
+        User sender = getUserById(senderId);
+
+        List<BulkTransferLine> lines = bulkTransferRequest.getLines();
+        if (lines.size() > maxBulkTransferLines) {
+            throw new DomainException("Bulk transfer can't have more than %d lines.".formatted(maxBulkTransferLines));
+        }
+
+        UUID sourceWalletId = bulkTransferRequest.getFromWalletId();
+        Wallet sourceWallet = walletRepository.findByIdAndOwnerId(sourceWalletId, sender.getId())
+                .orElseThrow(() -> new DomainException("Wallet with id [%s] does not belong to user with id [%s].".formatted(sourceWalletId, sender.getId())));
+
+        // First active wallet per username, same pick as a single transfer
+        Set<String> usernames = lines.stream().map(BulkTransferLine::getToUsername).collect(Collectors.toSet());
+        Map<String, Wallet> receiverWallets = new HashMap<>();
+        walletRepository.findAllByOwnerUsernameInAndStatus(usernames, WalletStatus.ACTIVE)
+                .forEach(w -> receiverWallets.putIfAbsent(w.getOwner().getUsername(), w));
+
+        // Keyed by identity - two identical lines are still two payments
+        Map<BulkTransferLine, String> failureReasons = new IdentityHashMap<>();
+        lines.stream()
+                .filter(line -> !receiverWallets.containsKey(line.getToUsername()))
+                .forEach(line -> failureReasons.put(line, "Invalid criteria for transfer"));
+
+        List<BulkTransferLine> payableLines = lines.stream().filter(line -> !failureReasons.containsKey(line)).toList();
+        BigDecimal totalAmount = payableLines.stream().map(BulkTransferLine::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        String description = "Bulk transfer from %s to %d recipients for %.2f EUR".formatted(
+                sender.getUsername(), payableLines.size(), totalAmount);
+
+        if (payableLines.isEmpty()) {
+            return toBulkTransferResult(lines, failureReasons, null, BigDecimal.ZERO);
+        }
+
+        Set<UUID> exclusiveRows = new HashSet<>();
+        Set<UUID> sharedRows = new HashSet<>();
+        exclusiveRows.add(sourceWalletId);
+        payableLines.stream()
+                .map(line -> receiverWallets.get(line.getToUsername()))
+                .forEach(w -> (w.isSharded() ? sharedRows : exclusiveRows).add(w.getId()));
+        sharedRows.removeAll(exclusiveRows);
+        lockRowsInCanonicalOrder(exclusiveRows, sharedRows);
+
+        Transaction withdrawal = charge(sender, sourceWalletId, totalAmount, description);
+        if (withdrawal.getStatus() == TransactionStatus.FAILED) {
+            payableLines.forEach(line -> failureReasons.put(line, withdrawal.getFailureReason()));
+            return toBulkTransferResult(lines, failureReasons, withdrawal.getId(), BigDecimal.ZERO);
+        }
+
+        Map<UUID, BigDecimal> creditsByWalletId = new LinkedHashMap<>();
+        payableLines.forEach(line -> creditsByWalletId.merge(
+                receiverWallets.get(line.getToUsername()).getId(), line.getAmount(), BigDecimal::add));
+
+        Map<UUID, Wallet> walletsById = receiverWallets.values().stream()
+                .collect(Collectors.toMap(Wallet::getId, Function.identity()));
+        Map<UUID, BigDecimal> plainCredits = new LinkedHashMap<>();
+        Set<UUID> notCredited = new HashSet<>();
+        creditsByWalletId.forEach((walletId, amount) -> {
+            Wallet wallet = walletsById.get(walletId);
+            if (!wallet.isSharded()) {
+                plainCredits.put(walletId, amount);
+            } else if (!credit(wallet, amount)) {
+                notCredited.add(walletId);
+            }
+        });
+        notCredited.addAll(walletRepository.creditAll(plainCredits));
+        plainCredits.keySet().forEach(walletId -> userSnapshotCache.evict(walletsById.get(walletId).getOwner().getId()));
+
+        // Receivers deactivated between lookup and credit: their lines fail and the money goes back to the source
+        BigDecimal refund = BigDecimal.ZERO;
+        for (BulkTransferLine line : payableLines) {
+            if (notCredited.contains(receiverWallets.get(line.getToUsername()).getId())) {
+                failureReasons.put(line, "Inactive wallet");
+                refund = refund.add(line.getAmount());
+            }
+        }
+
+        List<Transaction> deposits = new ArrayList<>();
+        if (refund.signum() > 0) {
+            walletRepository.addToBalance(sourceWalletId, refund);
+            deposits.add(transactionService.initializeTransaction(sender, sourceWallet, SMART_WALLET_LTD, refund,
+                    refreshBalance(sourceWallet), sourceWallet.getCurrency(), TransactionType.DEPOSIT,
+                    TransactionStatus.SUCCEEDED, "Refund of undeliverable bulk transfer lines", null));
+        }
+
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        walletRepository.findBalancesByIdIn(creditsByWalletId.keySet()).forEach(b -> balances.put(b.getId(), b.getBalance()));
+        creditsByWalletId.keySet().stream()
+                .map(walletsById::get)
+                .filter(Wallet::isSharded)
+                .forEach(w -> balances.put(w.getId(), refreshBalance(w)));
+
+        for (BulkTransferLine line : payableLines) {
+            if (failureReasons.containsKey(line)) {
+                continue;
+            }
+
+            Wallet receiverWallet = receiverWallets.get(line.getToUsername());
+            deposits.add(transactionService.initializeTransaction(receiverWallet.getOwner(), receiverWallet, sender.getUsername(),
+                    line.getAmount(), balances.get(receiverWallet.getId()), receiverWallet.getCurrency(), TransactionType.DEPOSIT,
+                    TransactionStatus.SUCCEEDED, description, null));
+        }
+        transactionService.createNewTransactions(deposits);
+
+        return toBulkTransferResult(lines, failureReasons, withdrawal.getId(), totalAmount.subtract(refund));
+    }
+
+    private BulkTransferResult toBulkTransferResult(List<BulkTransferLine> lines, Map<BulkTransferLine, String> failureReasons,
+                                                    UUID withdrawalTransactionId, BigDecimal totalAmount) {
+
+        List<BulkTransferLineResult> lineResults = lines.stream()
+                .map(line -> BulkTransferLineResult.builder()
+                        .toUsername(line.getToUsername())
+                        .amount(line.getAmount())
+                        .status(failureReasons.containsKey(line) ? TransactionStatus.FAILED : TransactionStatus.SUCCEEDED)
+                        .failureReason(failureReasons.get(line))
+                        .build())
+                .toList();
+        long failedCount = lineResults.stream().filter(r -> r.getStatus() == TransactionStatus.FAILED).count();
+
+        return BulkTransferResult.builder()
+                .withdrawalTransactionId(withdrawalTransactionId)
+                .totalAmount(totalAmount)
+                .succeededCount(lineResults.size() - failedCount)
+                .failedCount(failedCount)
+                .lines(lineResults)
+                .build();
+    }
+
     @Transactional
     public Transaction charge(User user, UUID walletId, BigDecimal amount, String description) {
         Wallet wallet = getById(walletId);
 
-        if (wallet.getStatus() == WalletStatus.INACTIVE) {
-            return transactionService.createNewTransaction(
-                    user, wallet.getId().toString(), SMART_WALLET_LTD,
-                    amount, wallet.getBalance(), wallet.getCurrency(), TransactionType.WITHDRAWAL,
-                    TransactionStatus.FAILED, description, "Inactive wallet"
-            );
-        }
+        boolean isDebited = debit(wallet, amount);
+
+        if (!isDebited) {
+            // The UPDATE only says that it didn't match - status and balance are read under the row lock, so the
+            // reason and balance left are the ones the debit actually saw, not the entity loaded before it
+            WalletStatus status = walletRepository.lockStatusById(walletId);
+            BigDecimal balance = refreshBalance(wallet);
+            String failureReason = status == WalletStatus.INACTIVE || balance.compareTo(amount) >= 0
+                    ? "Inactive wallet"
+                    : "Insufficient funds";
 
-        if (wallet.getBalance().compareTo(amount) < 0) {
             return transactionService.createNewTransaction(
-                    user, wallet.getId().toString(), SMART_WALLET_LTD,
-                    amount, wallet.getBalance(), wallet.getCurrency(), TransactionType.WITHDRAWAL,
-                    TransactionStatus.FAILED, description, "Insufficient funds");
+                    user, wallet, SMART_WALLET_LTD,
+                    amount, balance, wallet.getCurrency(), TransactionType.WITHDRAWAL,
+                    TransactionStatus.FAILED, description, failureReason);
         }
-
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        wallet.setUpdatedOn(LocalDateTime.now());
-        walletRepository.save(wallet);
+        refreshBalance(wallet);
 
         PaymentNotificationEvent event = PaymentNotificationEvent.builder()
                 .userId(user.getId())
@@ -163,12 +384,96 @@ public class WalletService {
         eventPublisher.publishEvent(event);
 
         return transactionService.createNewTransaction(
-                user, wallet.getId().toString(), SMART_WALLET_LTD,
+                user, wallet, SMART_WALLET_LTD,
                 amount, wallet.getBalance(), wallet.getCurrency(), TransactionType.WITHDRAWAL,
                 TransactionStatus.SUCCEEDED, description, null
         );
     }
 
+    // Both helpers evict the owner's cached snapshot - it shows the balance
+    private boolean credit(Wallet wallet, BigDecimal amount) {
+
+        userSnapshotCache.evict(wallet.getOwner().getId());
+        if (!wallet.isSharded()) {
+            return walletRepository.credit(wallet.getId(), amount, LocalDateTime.now()) == 1;
+        }
+
+        // The wallet row is only share-locked by a sharded credit, before the shard row (a no-op if the caller already
+        // holds it), see lockRowsInCanonicalOrder. The shard UPDATE re-checks status under that lock - the loaded
+        // entity may predate a deactivation
+        walletRepository.lockSharedById(wallet.getId());
+
+        int shardIndex = Math.floorMod(shardCursor.getAndIncrement(), wallet.getShardCount());
+        return walletBalanceShardRepository.credit(wallet.getId(), shardIndex, amount) == 1;
+    }
+
+    private boolean debit(Wallet wallet, BigDecimal amount) {
+
+        userSnapshotCache.evict(wallet.getOwner().getId());
+        if (walletRepository.debit(wallet.getId(), amount, LocalDateTime.now()) == 1) {
+            return true;
+        }
+
+        if (!wallet.isSharded()) {
+            return false;
+        }
+
+        // Funds may be sitting on the shards - fold them into the wallet row and try once more
+        consolidateShards(wallet.getId());
+        return walletRepository.debit(wallet.getId(), amount, LocalDateTime.now()) == 1;
+    }
+
+    // Wallet row first, then its shards; sharded credits hold the row's shared lock before touching a shard,
+    // so this waits for the running ones instead of deadlocking with them
+    private void consolidateShards(UUID walletId) {
+
+        walletRepository.lockById(walletId);
+        BigDecimal shardedBalance = walletBalanceShardRepository.lockBalancesByWalletId(walletId).stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (shardedBalance.signum() != 0) {
+            walletBalanceShardRepository.resetBalancesByWalletId(walletId);
+            walletRepository.addToBalance(walletId, shardedBalance);
+        }
+    }
+
+    // The managed entity doesn't see the conditional UPDATEs; balance is not updatable, so syncing it here never writes
+    private BigDecimal refreshBalance(Wallet wallet) {
+        wallet.setBalance(walletRepository.findBalanceById(wallet.getId()));
+        if (wallet.isSharded()) {
+            wallet.setShardedBalance(walletBalanceShardRepository.sumBalanceByWalletId(wallet.getId()));
+        }
+        return wallet.getBalance();
+    }
+
+    @Transactional
+    public void configureBalanceShards(UUID walletId, int shardCount) {
+
+        if (shardCount < 0 || shardCount > maxShardCount) {
+            throw new DomainException("Shard count must be between 0 and %d.".formatted(maxShardCount));
+        }
+
+        Wallet wallet = getById(walletId);
+        consolidateShards(walletId);
+        walletBalanceShardRepository.deleteAllByWalletId(walletId);
+
+        List<WalletBalanceShard> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(WalletBalanceShard.builder()
+                    .wallet(wallet)
+                    .shardIndex(i)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+        }
+        walletBalanceShardRepository.saveAll(shards);
+
+        wallet.setShardCount(shardCount);
+        walletRepository.save(wallet);
+        userSnapshotCache.evict(wallet.getOwner().getId());
+
+        log.info("Wallet with id [%s] now has [%d] balance shards".formatted(walletId, shardCount));
+    }
+
     private Wallet getById(UUID id) {
         return walletRepository.findById(id)
                 .orElseThrow(() -> new DomainException("Wallet with id [%s] does not exist.".formatted(id)));
@@ -187,24 +492,20 @@ public class WalletService {
                 .build();
     }
 
-    public Map<UUID, List<Transaction>> getLastFourTransactionsPerWallet(List<Wallet> wallets) {
-
-        // последните 4 транзакции, за които портфейла е бил или изпращач, или получател,
-        // като този портфейл принадлежи на конкретния потребител, а не на някой друг
-        Map<UUID, List<Transaction>> transactionsByWalletId = new LinkedHashMap<>();
-
-        wallets.forEach(w -> {
-            List<Transaction> lastFourTransactions = transactionService.getAllTransactionsByWallet(w).stream()
-                    .filter(t -> t.getStatus() == TransactionStatus.SUCCEEDED)
-                    .limit(4)
-                    .toList();
+    private User getUserById(UUID userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new DomainException("User with id [%s] does not exist.".formatted(userId)));
+    }
 
-            transactionsByWalletId.put(w.getId(), lastFourTransactions);
-        });
+    @Transactional(readOnly = true)
+    public Map<UUID, List<Transaction>> getLastTransactionsPerWallet(List<Wallet> wallets) {
 
-        return transactionsByWalletId;
+        // последните N транзакции, за които портфейла е бил или изпращач, или получател,
+        // като този портфейл принадлежи на конкретния потребител, а не на някой друг
+        return transactionService.getLastSucceededTransactionsByWallets(wallets, lastTransactionsCount);
     }
 
+    @Transactional
     public void switchStatus(UUID walletId, UUID ownerId) {
 
         Optional<Wallet> optionalWallet = walletRepository.findByIdAndOwnerId(walletId, ownerId);
@@ -215,5 +516,6 @@ public class WalletService {
         Wallet wallet = optionalWallet.get();
         wallet.setStatus(wallet.getStatus() == WalletStatus.ACTIVE ? WalletStatus.INACTIVE : WalletStatus.ACTIVE);
         walletRepository.save(wallet);
+        userSnapshotCache.evict(ownerId);
     }
 }
@@ -1,21 +1,38 @@
 package app.web;
 
 import app.exception.NotificationServiceFeignCallException;
+import app.exception.RateLimitExceededException;
 import app.exception.UsernameAlreadyExistException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.nio.file.AccessDeniedException;
+import java.util.List;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    private static final List<MediaType> JSON_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_PROBLEM_JSON);
+    private final ObjectMapper objectMapper;
+
+    public GlobalExceptionHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
 
     @ExceptionHandler(UsernameAlreadyExistException.class)
     public String handleUsernameAlreadyExist(RedirectAttributes redirectAttributes, HttpServletRequest request) {
@@ -34,6 +51,43 @@ public class GlobalExceptionHandler {
         return "redirect:/notifications";
     }
 
+    // Thrown by RateLimitInterceptor, so the handler is always known. API clients (@ResponseBody handlers or an
+    // explicit JSON Accept header) get a problem detail instead of the HTML page
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ModelAndView handleRateLimitExceeded(HttpServletRequest request, HttpServletResponse response,
+                                                HandlerMethod handlerMethod, RateLimitExceededException exception) {
+
+        long retryAfterSeconds = exception.getRetryAfter().toSeconds();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+
+        if (isApiRequest(request, handlerMethod)) {
+            ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, exception.getMessage());
+            problemDetail.setProperty("retryAfterSeconds", retryAfterSeconds);
+
+            MappingJackson2JsonView view = new MappingJackson2JsonView(objectMapper);
+            view.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            view.setExtractValueFromSingleKeyModel(true);
+            return new ModelAndView(view, "problem", problemDetail);
+        }
+
+        ModelAndView modelAndView = new ModelAndView("too-many-requests");
+        modelAndView.addObject("retryAfterSeconds", retryAfterSeconds);
+        return modelAndView;
+    }
+
+    // A browser's Accept ends in */* - only an explicit JSON type counts
+    private static boolean isApiRequest(HttpServletRequest request, HandlerMethod handlerMethod) {
+
+        if (handlerMethod.hasMethodAnnotation(ResponseBody.class)
+                || AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), ResponseBody.class)) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(mediaType -> JSON_MEDIA_TYPES.stream().anyMatch(mediaType::equalsTypeAndSubtype));
+    }
+
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ExceptionHandler({
             AccessDeniedException.class,
@@ -29,7 +29,7 @@ public class NotificationController {
     @GetMapping
     public ModelAndView getNotificationPage(@AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
+        User user = userService.getSnapshotById(authenticationMetadata.getUserId());
 
         NotificationPreference notificationPreference = notificationService.getNotificationPreference(user.getId());
         List<Notification> notifications = notificationService.getNotificationHistory(user.getId());
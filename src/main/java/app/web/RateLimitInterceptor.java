@@ -0,0 +1,42 @@
+package app.web;
+
+import app.ratelimit.service.RateLimitService;
+import app.security.AuthenticationMetadata;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Takes a token before every {@link RateLimited} handler runs. An exhausted bucket throws before any service or
+ * database work is done; GlobalExceptionHandler turns that into a 429 with Retry-After.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimitService rateLimitService;
+
+    public RateLimitInterceptor(RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        if (rateLimited == null) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticationMetadata authenticationMetadata) {
+            rateLimitService.acquire(authenticationMetadata.getUserId(), rateLimited.value());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package app.web;
+
+import app.ratelimit.model.RateLimitedEndpoint;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how often one user can call the handler, see {@link RateLimitInterceptor}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RateLimited {
+    RateLimitedEndpoint value();
+}
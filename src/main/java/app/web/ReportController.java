@@ -0,0 +1,31 @@
+package app.web;
+
+import app.report.service.ReportService;
+import app.web.dto.ReportFilter;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+@Controller
+@RequestMapping("/reports")
+public class ReportController {
+    private final ReportService reportService;
+
+    public ReportController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ModelAndView getReportsPage(ReportFilter reportFilter) {
+
+        ModelAndView modelAndView = new ModelAndView();
+        modelAndView.setViewName("reports");
+        modelAndView.addObject("transactionReport", reportService.getTransactionReport(reportFilter));
+        modelAndView.addObject("reportFilter", reportFilter);
+
+        return modelAndView;
+    }
+}
@@ -1,9 +1,10 @@
 package app.web;
 
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.service.IdempotencyService;
 import app.security.AuthenticationMetadata;
 import app.subscription.model.SubscriptionType;
 import app.subscription.service.SubscriptionService;
-import app.transaction.model.Transaction;
 import app.user.model.User;
 import app.user.service.UserService;
 import app.web.dto.UpgradeRequest;
@@ -16,26 +17,32 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
 @Controller
 @RequestMapping("/subscriptions")
 public class SubscriptionController {
     private final UserService userService;
     private final SubscriptionService subscriptionService;
+    private final IdempotencyService idempotencyService;
 
-    public SubscriptionController(UserService userService, SubscriptionService subscriptionService) {
+    public SubscriptionController(UserService userService, SubscriptionService subscriptionService, IdempotencyService idempotencyService) {
         this.userService = userService;
         this.subscriptionService = subscriptionService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping
     public ModelAndView getUpgradePage(@AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
+        User user = userService.getSnapshotById(authenticationMetadata.getUserId());
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("upgrade");
         modelAndView.addObject("user", user);
-        modelAndView.addObject("upgradeRequest", UpgradeRequest.builder().build());
+        modelAndView.addObject("upgradeRequest", UpgradeRequest.builder().idempotencyKey(UUID.randomUUID().toString()).build());
 
         return modelAndView;
     }
@@ -45,17 +52,20 @@ public class SubscriptionController {
                           @Valid UpgradeRequest upgradeRequest,
                           @AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
+        UUID userId = authenticationMetadata.getUserId();
 
-        Transaction transaction = subscriptionService.upgrade(user, subscriptionType, upgradeRequest);
+        // Not validated - a missing period or wallet is still part of the request
+        List<?> parameters = Arrays.asList(subscriptionType, upgradeRequest.getSubscriptionPeriod(), upgradeRequest.getWalletId());
+        UUID transactionId = idempotencyService.execute(userId, upgradeRequest.getIdempotencyKey(), IdempotentOperation.SUBSCRIPTION_UPGRADE,
+                parameters, () -> subscriptionService.upgrade(userId, subscriptionType, upgradeRequest));
 
-        return "redirect:/transactions/" + transaction.getId();
+        return "redirect:/transactions/" + transactionId;
     }
 
     @GetMapping("/history")
     public ModelAndView getUserSubscriptions(@AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
+        User user = userService.getSnapshotById(authenticationMetadata.getUserId());
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("subscription-history");
@@ -2,43 +2,88 @@ package app.web;
 
 import app.security.AuthenticationMetadata;
 import app.transaction.model.Transaction;
+import app.transaction.model.TransactionExportFormat;
+import app.transaction.service.TransactionExportService;
 import app.transaction.service.TransactionService;
 import app.user.model.User;
 import app.user.service.UserService;
+import app.web.dto.TransactionPage;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Controller
 @RequestMapping("/transactions")
 public class TransactionController {
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
     private final UserService userService;
 
-    public TransactionController(TransactionService transactionService, UserService userService) {
+    public TransactionController(TransactionService transactionService, TransactionExportService transactionExportService,
+                                 UserService userService) {
         this.transactionService = transactionService;
+        this.transactionExportService = transactionExportService;
         this.userService = userService;
     }
 
     @GetMapping
-    public ModelAndView getAllTransactions(@AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
+    public ModelAndView getAllTransactions(@RequestParam(name = "before", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                           @RequestParam(name = "beforeId", required = false) UUID beforeId,
+                                           @AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
-        List<Transaction> transactions = transactionService.getAllByOwnerId(authenticationMetadata.getUserId());
+        User user = userService.getSnapshotById(authenticationMetadata.getUserId());
+        TransactionPage transactionPage = transactionService.getPageByOwnerId(authenticationMetadata.getUserId(), before, beforeId);
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("transactions");
-        modelAndView.addObject("transactions", transactions);
+        modelAndView.addObject("transactions", transactionPage.getTransactions());
+        modelAndView.addObject("transactionPage", transactionPage);
+        modelAndView.addObject("isFirstPage", before == null || beforeId == null);
         modelAndView.addObject("user", user);
         return modelAndView;
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam(name = "format", defaultValue = "CSV") TransactionExportFormat format,
+                                                                    @AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
+        return export(authenticationMetadata.getUserId(), format);
+    }
+
+    // Statements of any user, for auditors
+    @GetMapping("/export/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUserTransactions(@PathVariable UUID userId,
+                                                                        @RequestParam(name = "format", defaultValue = "CSV") TransactionExportFormat format) {
+        return export(userId, format);
+    }
+
+    // The body is written after the controller returns, on an async request thread, over a connection of the export pool
+    private ResponseEntity<StreamingResponseBody> export(UUID userId, TransactionExportFormat format) {
+
+        String fileName = "transactions-%s.%s.gz".formatted(LocalDate.now(), format.getExtension());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(outputStream -> transactionExportService.export(userId, format, outputStream));
+    }
+
     @GetMapping("/{id}")
     public ModelAndView getTransactionById(@PathVariable UUID id) {
 
@@ -1,49 +1,57 @@
 package app.web;
 
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.service.IdempotencyService;
+import app.ratelimit.model.RateLimitedEndpoint;
 import app.security.AuthenticationMetadata;
-import app.transaction.model.Transaction;
 import app.user.model.User;
 import app.user.service.UserService;
 import app.wallet.service.WalletService;
+import app.web.dto.BulkTransferRequest;
+import app.web.dto.BulkTransferResult;
 import app.web.dto.TransferRequest;
 import jakarta.validation.Valid;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.List;
+import java.util.UUID;
+
 @Controller
 @RequestMapping("/transfers")
 public class TransferController {
     private final UserService userService;
     private final WalletService walletService;
+    private final IdempotencyService idempotencyService;
 
-    public TransferController(UserService userService, WalletService walletService) {
+    public TransferController(UserService userService, WalletService walletService, IdempotencyService idempotencyService) {
         this.userService = userService;
         this.walletService = walletService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping
     public ModelAndView getTransferPage(@AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
+        User user = userService.getSnapshotById(authenticationMetadata.getUserId());
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("transfer");
         modelAndView.addObject("user", user);
-        modelAndView.addObject("transferRequest", TransferRequest.builder().build());
+        modelAndView.addObject("transferRequest", TransferRequest.builder().idempotencyKey(UUID.randomUUID().toString()).build());
 
         return modelAndView;
     }
 
     @PostMapping
+    @RateLimited(RateLimitedEndpoint.TRANSFER)
     public ModelAndView initiateTransfer(@Valid TransferRequest transferRequest, BindingResult bindingResult,
                                          @AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
+        User user = userService.getSnapshotById(authenticationMetadata.getUserId());
 
         if (bindingResult.hasErrors()) {
             ModelAndView modelAndView = new ModelAndView();
@@ -52,7 +60,18 @@ public class TransferController {
             return modelAndView;
         }
 
-        Transaction transaction = walletService.transferFunds(user, transferRequest);
-        return new ModelAndView("redirect:/transactions/" + transaction.getId());
+        List<?> parameters = List.of(transferRequest.getFromWalletId(), transferRequest.getToUsername(), transferRequest.getAmount());
+        UUID transactionId = idempotencyService.execute(user.getId(), transferRequest.getIdempotencyKey(), IdempotentOperation.TRANSFER,
+                parameters, () -> walletService.transferFunds(user.getId(), transferRequest));
+        return new ModelAndView("redirect:/transactions/" + transactionId);
+    }
+
+    @PostMapping("/bulk")
+    @RateLimited(RateLimitedEndpoint.BULK_TRANSFER)
+    @ResponseBody
+    public BulkTransferResult initiateBulkTransfer(@Valid @RequestBody BulkTransferRequest bulkTransferRequest,
+                                                   @AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
+
+        return walletService.bulkTransfer(authenticationMetadata.getUserId(), bulkTransferRequest);
     }
 }
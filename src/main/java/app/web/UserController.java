@@ -1,7 +1,10 @@
 package app.web;
 
 import app.user.model.User;
+import app.user.service.UserDirectoryService;
 import app.user.service.UserService;
+import app.web.dto.UserDirectoryFilter;
+import app.web.dto.UserDirectoryPage;
 import app.web.dto.UserEditRequest;
 import app.web.mapper.DtoMapper;
 import jakarta.validation.Valid;
@@ -14,27 +17,30 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.ModelAndView;
 
-import java.util.List;
 import java.util.UUID;
 
 @Controller
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final UserDirectoryService userDirectoryService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserDirectoryService userDirectoryService) {
         this.userService = userService;
+        this.userDirectoryService = userDirectoryService;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ModelAndView getAllUsers() {
+    public ModelAndView getAllUsers(UserDirectoryFilter userDirectoryFilter) {
 
-        List<User> users = userService.getAllUsers();
+        UserDirectoryPage userDirectoryPage = userDirectoryService.getPage(userDirectoryFilter);
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("users");
-        modelAndView.addObject("users", users);
+        modelAndView.addObject("users", userDirectoryPage.getUsers());
+        modelAndView.addObject("userDirectoryPage", userDirectoryPage);
+        modelAndView.addObject("userDirectoryFilter", userDirectoryFilter);
 
         return modelAndView;
     }
@@ -58,7 +64,7 @@ public class UserController {
     @GetMapping("/{id}/profile")
     public ModelAndView getProfileMenu(@PathVariable UUID id) {
 
-        User user = userService.getById(id);
+        User user = userService.getSnapshotById(id);
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("profile-menu");
@@ -74,7 +80,7 @@ public class UserController {
         if (bindingResult.hasErrors()) {
             ModelAndView modelAndView = new ModelAndView();
             modelAndView.setViewName("profile-menu");
-            modelAndView.addObject("user", userService.getById(id));
+            modelAndView.addObject("user", userService.getSnapshotById(id));
             return modelAndView;
         }
 
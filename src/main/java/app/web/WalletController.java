@@ -1,10 +1,14 @@
 package app.web;
 
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.service.IdempotencyService;
+import app.ratelimit.model.RateLimitedEndpoint;
 import app.security.AuthenticationMetadata;
 import app.transaction.model.Transaction;
 import app.user.model.User;
 import app.user.service.UserService;
 import app.wallet.service.WalletService;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -20,22 +24,25 @@ import java.util.UUID;
 public class WalletController {
     private final UserService userService;
     private final WalletService walletService;
+    private final IdempotencyService idempotencyService;
 
-    public WalletController(UserService userService, WalletService walletService) {
+    public WalletController(UserService userService, WalletService walletService, IdempotencyService idempotencyService) {
         this.userService = userService;
         this.walletService = walletService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping
     public ModelAndView getWalletsPage(@AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
-        Map<UUID, List<Transaction>> lastFourTransactionsPerWallet = walletService.getLastFourTransactionsPerWallet(user.getWallets());
+        User user = userService.getSnapshotById(authenticationMetadata.getUserId());
+        Map<UUID, List<Transaction>> lastTransactionsPerWallet = walletService.getLastTransactionsPerWallet(user.getWallets());
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("wallets");
         modelAndView.addObject("user", user);
-        modelAndView.addObject("lastFourTransactions", lastFourTransactionsPerWallet);
+        modelAndView.addObject("lastTransactions", lastTransactionsPerWallet);
+        modelAndView.addObject("idempotencyKey", UUID.randomUUID().toString());
 
         return modelAndView;
     }
@@ -43,7 +50,8 @@ public class WalletController {
     @PostMapping
     public String createNewWallet(@AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        User user = userService.getById(authenticationMetadata.getUserId());
+        // Not the cached snapshot - the wallet limit is checked against the current subscription
+        User user = userService.getByIdWithSubscriptions(authenticationMetadata.getUserId());
 
         walletService.unlockNewWallet(user);
 
@@ -58,11 +66,24 @@ public class WalletController {
         return "redirect:/wallets";
     }
 
+    @PutMapping("/{id}/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String configureBalanceShards(@PathVariable UUID id, @RequestParam("count") int shardCount) {
+
+        walletService.configureBalanceShards(id, shardCount);
+
+        return "redirect:/users";
+    }
+
     @PutMapping("/{id}/balance/top-up")
-    public String topUpWalletBalance(@PathVariable UUID id) {
+    @RateLimited(RateLimitedEndpoint.WALLET_TOP_UP)
+    public String topUpWalletBalance(@PathVariable UUID id, @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
+                                     @AuthenticationPrincipal AuthenticationMetadata authenticationMetadata) {
 
-        Transaction transaction = walletService.topUp(id, BigDecimal.valueOf(20));
+        BigDecimal amount = BigDecimal.valueOf(20);
+        UUID transactionId = idempotencyService.execute(authenticationMetadata.getUserId(), idempotencyKey, IdempotentOperation.WALLET_TOP_UP,
+                List.of(id, amount), () -> walletService.topUp(id, amount));
 
-        return "redirect:/transactions/" + transaction.getId();
+        return "redirect:/transactions/" + transactionId;
     }
 }
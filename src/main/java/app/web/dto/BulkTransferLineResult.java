@@ -0,0 +1,20 @@
+package app.web.dto;
+
+import app.transaction.model.TransactionStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class BulkTransferLineResult {
+
+    private String toUsername;
+
+    private BigDecimal amount;
+
+    private TransactionStatus status;
+
+    private String failureReason;
+}
@@ -0,0 +1,25 @@
+package app.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransferRequest {
+
+    @NotNull
+    private UUID fromWalletId;
+
+    @NotEmpty
+    private List<@Valid BulkTransferLine> lines;
+}
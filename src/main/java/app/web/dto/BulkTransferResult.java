@@ -0,0 +1,24 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class BulkTransferResult {
+
+    // The single withdrawal from the source wallet; null when no line could be sent
+    private UUID withdrawalTransactionId;
+
+    private BigDecimal totalAmount;
+
+    private long succeededCount;
+
+    private long failedCount;
+
+    private List<BulkTransferLineResult> lines;
+}
@@ -0,0 +1,13 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class NotificationEnqueuedEvent {
+
+    private UUID userId;
+}
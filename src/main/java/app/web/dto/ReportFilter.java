@@ -0,0 +1,31 @@
+package app.web.dto;
+
+import app.report.model.ReportPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportFilter {
+
+    @Builder.Default
+    private ReportPeriod period = ReportPeriod.DAY;
+
+    // Both inclusive; missing dates default to the last 30 days
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    // All users when not set
+    private UUID userId;
+}
@@ -0,0 +1,18 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+public class SubscriptionCreatedEvent {
+
+    private UUID subscriptionId;
+
+    private UUID ownerId;
+
+    private LocalDateTime completedOn;
+}
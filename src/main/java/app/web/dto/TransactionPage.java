@@ -0,0 +1,23 @@
+package app.web.dto;
+
+import app.transaction.model.Transaction;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class TransactionPage {
+
+    private List<Transaction> transactions;
+
+    private boolean hasNext;
+
+    // Cursor of the last row on this page - (createdOn, id) of the next page starts right after it
+    private LocalDateTime nextCreatedOn;
+
+    private UUID nextId;
+}
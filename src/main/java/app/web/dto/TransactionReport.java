@@ -0,0 +1,24 @@
+package app.web.dto;
+
+import app.report.model.ReportPeriod;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class TransactionReport {
+
+    private ReportPeriod period;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    // Periods without transactions are left out
+    private List<TransactionReportRow> rows;
+
+    private TransactionReportRow totals;
+}
@@ -0,0 +1,36 @@
+package app.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionReportRow {
+
+    // First day of the day, week or month; null for the totals row
+    private LocalDate periodStart;
+
+    private long transactions;
+
+    private long deposits;
+
+    private long withdrawals;
+
+    private long succeeded;
+
+    private long failed;
+
+    // Amounts of succeeded transactions only - failed ones moved no money
+    @Builder.Default
+    private BigDecimal depositedAmount = BigDecimal.ZERO;
+
+    @Builder.Default
+    private BigDecimal withdrawnAmount = BigDecimal.ZERO;
+}
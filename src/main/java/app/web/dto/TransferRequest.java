@@ -22,4 +22,7 @@ public class TransferRequest {
     @NotNull
     @Positive
     private BigDecimal amount;
+
+    // Generated with the form, so a resubmitted form replays the first result
+    private String idempotencyKey;
 }
@@ -12,4 +12,7 @@ public class UpgradeRequest {
 
     private SubscriptionPeriod subscriptionPeriod;
     private UUID walletId;
+
+    // Generated with the form, so a resubmitted form replays the first result
+    private String idempotencyKey;
 }
@@ -0,0 +1,30 @@
+package app.web.dto;
+
+import app.user.model.Country;
+import app.user.model.Role;
+import app.user.model.UserDirectorySort;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Also the key of the "user-directory-pages" cache - equal filters share a cached page
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryFilter {
+
+    private Role role;
+
+    private Boolean active;
+
+    private Country country;
+
+    private String username;
+
+    @Builder.Default
+    private UserDirectorySort sort = UserDirectorySort.NEWEST;
+
+    private int page;
+}
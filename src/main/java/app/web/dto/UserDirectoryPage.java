@@ -0,0 +1,17 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class UserDirectoryPage {
+
+    List<UserSummary> users;
+
+    int page;
+
+    boolean hasNext;
+}
@@ -0,0 +1,31 @@
+package app.web.dto;
+
+import app.user.model.Country;
+import app.user.model.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Immutable copy of the user row for cached lists - no lazy associations, nothing tied to a session
+@Value
+@Builder
+@AllArgsConstructor
+public class UserSummary {
+
+    UUID id;
+
+    String username;
+
+    String email;
+
+    Role role;
+
+    Country country;
+
+    boolean active;
+
+    LocalDateTime createdOn;
+}
@@ -0,0 +1,11 @@
+-- Adds wallet_shard to the key of transaction_daily_rollups, so credits to a sharded wallet spread their rollup upserts
+-- over one row per shard instead of all updating the same row.
+--
+-- ddl-auto=update adds the column but never changes an existing primary key, so run this once, with the application
+-- stopped, before starting the version that writes wallet_shard. Existing rows become shard 0. The new key also leads
+-- with owner_id - tables created by Hibernate's default column ordering started it with rollup_date.
+
+ALTER TABLE transaction_daily_rollups
+    ADD COLUMN wallet_shard INT NOT NULL DEFAULT 0 AFTER wallet_id,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (owner_id, rollup_date, status, type, wallet_id, wallet_shard);
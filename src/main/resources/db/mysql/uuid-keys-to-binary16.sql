@@ -0,0 +1,41 @@
+-- Narrows every UUID key column to BINARY(16), the type the entities map their time-ordered ids to.
+--
+-- Needed only for schemas created before ids were pinned to BINARY(16) (e.g. BINARY(255) columns, where every key is
+-- right-padded with 233 zero bytes). ddl-auto=update never changes the type of an existing column, so run this once,
+-- with the application stopped. On columns that are already BINARY(16) it is a no-op.
+--
+-- Existing rows keep their random (v4) ids - they are still valid and unique. Only new rows get time-ordered (v7) ids,
+-- so the clustered index stops fragmenting from the moment the application is restarted on the new version.
+
+SET @previous_sql_mode = @@SESSION.sql_mode;
+-- Dropping the zero padding counts as truncation in strict mode
+SET SESSION sql_mode = '';
+SET FOREIGN_KEY_CHECKS = 0;
+
+ALTER TABLE users
+    MODIFY id BINARY(16) NOT NULL;
+
+ALTER TABLE wallets
+    MODIFY id BINARY(16) NOT NULL,
+    MODIFY owner_id BINARY(16);
+
+ALTER TABLE subscriptions
+    MODIFY id BINARY(16) NOT NULL,
+    MODIFY owner_id BINARY(16);
+
+ALTER TABLE transactions
+    MODIFY id BINARY(16) NOT NULL,
+    MODIFY owner_id BINARY(16),
+    MODIFY sender_wallet_id BINARY(16),
+    MODIFY receiver_wallet_id BINARY(16);
+
+ALTER TABLE wallet_balance_shards
+    MODIFY id BINARY(16) NOT NULL,
+    MODIFY wallet_id BINARY(16) NOT NULL;
+
+ALTER TABLE notification_outbox
+    MODIFY id BINARY(16) NOT NULL,
+    MODIFY user_id BINARY(16) NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
+SET SESSION sql_mode = @previous_sql_mode;
@@ -0,0 +1,24 @@
+package app;
+
+import app.notification.client.StubNotificationClientConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The whole application on the embedded database of the test profile, with the notification service stubbed and
+ * {@link TestUsers} available for injection. Every test using it shares one cached context; a test class may still
+ * declare its own {@link ActiveProfiles}, which replaces the one here.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest
+@ActiveProfiles("test")
+@Import({StubNotificationClientConfiguration.class, TestUsers.class})
+public @interface ApplicationTest {
+}
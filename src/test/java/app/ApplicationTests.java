@@ -1,9 +1,8 @@
 package app;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@ApplicationTest
 class ApplicationTests {
 
 	@Test
@@ -0,0 +1,31 @@
+package app;
+
+import app.security.AuthenticationMetadata;
+import app.user.model.Country;
+import app.user.model.Role;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.web.dto.RegisterRequest;
+
+/**
+ * Registers users the way the registration form does - with their default wallet and subscription.
+ */
+public class TestUsers {
+    private final UserService userService;
+
+    public TestUsers(UserService userService) {
+        this.userService = userService;
+    }
+
+    public User register(String username) {
+        return userService.register(RegisterRequest.builder()
+                .username(username)
+                .password("password")
+                .country(Country.BULGARIA)
+                .build());
+    }
+
+    public static AuthenticationMetadata principalOf(User user, Role role) {
+        return new AuthenticationMetadata(user.getId(), user.getUsername(), user.getPassword(), role, true);
+    }
+}
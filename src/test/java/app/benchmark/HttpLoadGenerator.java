@@ -0,0 +1,265 @@
+package app.benchmark;
+
+import app.Application;
+import app.notification.client.StubNotificationClientConfiguration;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.web.dto.RegisterRequest;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How many logins, transfers and top-ups per second one node sustains, measured through the real endpoints.
+ * <p>
+ * Boots the application on the embedded database of the test profile with the notification service stubbed,
+ * registers the accounts, then runs one virtual user per thread: log in, then loop over home, transfer, top-up
+ * and transaction history, logging in again with a fresh session every few rounds. Every virtual user keeps one
+ * client and cookie jar for the whole run - a re-login clears the jar, not the connections - and submits forms with
+ * the CSRF token of its session, like a browser. Latencies go into one
+ * HdrHistogram per endpoint; warm-up requests are not recorded. Run the main method with e.g.:
+ * <pre>
+ * -Dloadtest.concurrency=32 -Dloadtest.accounts=500 -Dloadtest.warmup=20s -Dloadtest.duration=60s -Dloadtest.relogin-every=20
+ * </pre>
+ * Closed loop - a slow response delays the virtual user's next request, so under saturation the percentiles
+ * understate what an open arrival rate would see; compare runs at the same concurrency.
+ */
+public class HttpLoadGenerator {
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+    private static final String PASSWORD = "load-test-password";
+    private static final List<String> ENDPOINTS = List.of("POST /login", "GET /home", "POST /transfers",
+            "PUT /wallets/{id}/balance/top-up", "GET /transactions");
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final List<Account> accounts;
+    private final String baseUrl;
+    private final int reloginEvery;
+    private volatile boolean recording;
+
+    private HttpLoadGenerator(List<Account> accounts, String baseUrl, int reloginEvery) {
+        this.accounts = accounts;
+        this.baseUrl = baseUrl;
+        this.reloginEvery = reloginEvery;
+        for (String endpoint : ENDPOINTS) {
+            // Microseconds, up to a minute, 3 significant digits
+            latencies.put(endpoint, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int accountCount = Integer.getInteger("loadtest.accounts", 200);
+        Duration warmup = Duration.parse("PT" + System.getProperty("loadtest.warmup", "15s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "60s"));
+        int reloginEvery = Integer.getInteger("loadtest.relogin-every", 20);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class, StubNotificationClientConfiguration.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN", "spring.main.banner-mode=off",
+                        // Measures throughput, not the limiter - a virtual user tops up and transfers far more often than a person
+                        "rate-limits.tiers.DEFAULT.capacity=1000000", "rate-limits.tiers.DEFAULT.refill-per-minute=1000000")
+                .run(args)) {
+
+            UserService userService = context.getBean(UserService.class);
+            List<Account> accounts = new ArrayList<>();
+            for (int i = 0; i < accountCount; i++) {
+                User user = userService.register(RegisterRequest.builder()
+                        .username("load-user-%05d".formatted(i))
+                        .password(PASSWORD)
+                        .country(Country.BULGARIA)
+                        .build());
+                accounts.add(new Account(user.getUsername(), user.getWallets().get(0).getId()));
+            }
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            new HttpLoadGenerator(accounts, "http://localhost:" + port, reloginEvery).run(concurrency, warmup, duration);
+        }
+    }
+
+    private void run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+
+        System.out.printf("%d virtual users, %d accounts, warm-up %s, measuring %s%n", concurrency, accounts.size(), warmup, duration);
+
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch stopped = new CountDownLatch(concurrency);
+        long deadline = System.nanoTime() + warmup.plus(duration).toNanos();
+        for (int i = 0; i < concurrency; i++) {
+            int index = i;
+            virtualUsers.submit(() -> {
+                try {
+                    runVirtualUser(index, deadline);
+                } finally {
+                    stopped.countDown();
+                }
+            });
+        }
+
+        Thread.sleep(warmup.toMillis());
+        recording = true;
+        long measuringSince = System.nanoTime();
+
+        stopped.await();
+        double seconds = (System.nanoTime() - measuringSince) / 1e9;
+        virtualUsers.shutdown();
+
+        printReport(seconds);
+    }
+
+    private void runVirtualUser(int virtualUser, long deadline) {
+
+        Random random = new Random(virtualUser);
+        int index = virtualUser % accounts.size();
+        Account account = accounts.get(index);
+        int round = 0;
+        // One client per virtual user for the whole run - its connections are reused across logins like a browser's
+        Session session = new Session();
+        boolean loggedIn = false;
+
+        while (System.nanoTime() < deadline) {
+            try {
+                if (!loggedIn || round % reloginEvery == 0) {
+                    login(session, account);
+                    loggedIn = true;
+                }
+                round++;
+
+                send(session, "GET /home", get("/home"), 200);
+
+                Account receiver = accounts.get((index + 1 + random.nextInt(accounts.size() - 1)) % accounts.size());
+                send(session, "POST /transfers", form("/transfers", Map.of(
+                        "fromWalletId", account.walletId().toString(),
+                        "toUsername", receiver.username(),
+                        "amount", "0.01",
+                        "_csrf", session.csrfToken)), 302);
+
+                send(session, "PUT /wallets/{id}/balance/top-up", form("/wallets/%s/balance/top-up".formatted(account.walletId()), Map.of(
+                        "_method", "PUT",
+                        "_csrf", session.csrfToken)), 302);
+
+                send(session, "GET /transactions", get("/transactions"), 200);
+            } catch (Exception e) {
+                // Counted under the endpoint that failed; start over with a new login
+                loggedIn = false;
+            }
+        }
+    }
+
+    private void login(Session session, Account account) throws Exception {
+
+        // Dropping the cookies drops the old server session - the login below starts a new one
+        session.cookieManager.getCookieStore().removeAll();
+        session.csrfToken = csrfToken(session.client.send(get("/login"), HttpResponse.BodyHandlers.ofString()).body());
+        send(session, "POST /login", form("/login", Map.of(
+                "username", account.username(),
+                "password", PASSWORD,
+                "_csrf", session.csrfToken)), 302);
+
+        // The session id and the CSRF token change on login - take the new token from a page with forms
+        session.csrfToken = csrfToken(session.client.send(get("/wallets"), HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    private void send(Session session, String endpoint, HttpRequest request, int expectedStatus) throws Exception {
+
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = session.client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            countError(endpoint);
+            throw e;
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+
+        // A 302 to /login or to an error page is a failure too
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != expectedStatus || location.contains("/login") || location.contains("error")) {
+            countError(endpoint);
+            throw new IllegalStateException("%s answered %d %s".formatted(endpoint, response.statusCode(), location));
+        }
+
+        if (recording) {
+            latencies.get(endpoint).recordValue(Math.min(micros, latencies.get(endpoint).getHighestTrackableValue()));
+        }
+    }
+
+    private void countError(String endpoint) {
+        if (recording) {
+            errors.get(endpoint).increment();
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest form(String path, Map<String, String> fields) {
+
+        StringJoiner body = new StringJoiner("&");
+        fields.forEach((name, value) -> body.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8)));
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private static String csrfToken(String html) {
+
+        Matcher matcher = CSRF_TOKEN.matcher(html);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No CSRF token on the page");
+        }
+        return matcher.group(1);
+    }
+
+    private void printReport(double seconds) {
+
+        System.out.printf("%n%-34s %9s %7s %10s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (String endpoint : ENDPOINTS) {
+            Histogram histogram = latencies.get(endpoint);
+            System.out.printf("%-34s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint,
+                    histogram.getTotalCount(),
+                    errors.get(endpoint).sum(),
+                    histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    private record Account(String username, UUID walletId) {
+    }
+
+    private static final class Session {
+        private final CookieManager cookieManager = new CookieManager();
+        private final HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(cookieManager)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        private String csrfToken;
+    }
+
+}
@@ -0,0 +1,99 @@
+package app.benchmark;
+
+import app.persistence.TimeOrderedUuidGenerator;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Insert-rate comparison of random (v4) and time-ordered (v7) BINARY(16) primary keys on InnoDB.
+ * <p>
+ * Both runs insert the same number of transaction-sized rows into an empty table and print the rate per window,
+ * so the drop-off of random keys once the index outgrows the buffer pool is visible. Run the main method against
+ * a disposable MySQL schema (keep buffer pool size in mind when picking the row count):
+ * <pre>
+ * -Dbenchmark.jdbc-url=jdbc:mysql://localhost:3306/uuid_benchmark?createDatabaseIfNotExist=true&amp;rewriteBatchedStatements=true
+ * -Dbenchmark.username=root -Dbenchmark.password=1234 -Dbenchmark.rows=5000000
+ * </pre>
+ */
+public class UuidKeyInsertBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    private static final int REPORT_EVERY = 250_000;
+
+    public static void main(String[] args) throws Exception {
+
+        String url = System.getProperty("benchmark.jdbc-url",
+                "jdbc:mysql://localhost:3306/uuid_benchmark?createDatabaseIfNotExist=true&rewriteBatchedStatements=true");
+        String username = System.getProperty("benchmark.username", "root");
+        String password = System.getProperty("benchmark.password", "1234");
+        int rows = Integer.getInteger("benchmark.rows", 2_000_000);
+
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            run(connection, "bench_random_uuid_keys", rows, UUID::randomUUID);
+            run(connection, "bench_time_ordered_uuid_keys", rows, TimeOrderedUuidGenerator::next);
+        }
+    }
+
+    private static void run(Connection connection, String table, int rows, Supplier<UUID> keys) throws Exception {
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("""
+                    CREATE TABLE %s (
+                        id BINARY(16) NOT NULL PRIMARY KEY,
+                        owner_id BINARY(16) NOT NULL,
+                        amount DECIMAL(38, 2) NOT NULL,
+                        description VARCHAR(255) NOT NULL,
+                        created_on DATETIME(6) NOT NULL
+                    ) ENGINE = InnoDB
+                    """.formatted(table));
+        }
+
+        connection.setAutoCommit(false);
+        String sql = "INSERT INTO %s (id, owner_id, amount, description, created_on) VALUES (?, ?, ?, ?, NOW(6))".formatted(table);
+        byte[] ownerId = toBytes(UUID.randomUUID());
+
+        long startedAt = System.nanoTime();
+        long windowStartedAt = startedAt;
+
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setBytes(1, toBytes(keys.get()));
+                insert.setBytes(2, ownerId);
+                insert.setBigDecimal(3, BigDecimal.TEN);
+                insert.setString(4, "Transfer from benchmark_sender to benchmark_receiver for 10.00 EUR");
+                insert.addBatch();
+
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+
+                if (i % REPORT_EVERY == 0) {
+                    long now = System.nanoTime();
+                    System.out.printf("%-30s %,12d rows  %,10.0f rows/s%n", table, i, REPORT_EVERY / ((now - windowStartedAt) / 1e9));
+                    windowStartedAt = now;
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        System.out.printf("%-30s TOTAL %,d rows in %.1f s = %,.0f rows/s%n%n", table, rows, seconds, rows / seconds);
+        connection.setAutoCommit(true);
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,166 @@
+package app.idempotency.service;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.config.CacheConfiguration;
+import app.exception.DomainException;
+import app.idempotency.model.IdempotentOperation;
+import app.user.model.User;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ApplicationTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IdempotencyServiceTests {
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    private Cache replays;
+    private User user;
+    private UUID walletId;
+
+    @BeforeAll
+    void createAccount() {
+
+        user = testUsers.register("idempotency-keys");
+        walletId = user.getWallets().get(0).getId();
+        replays = cacheManager.getCache(CacheConfiguration.IDEMPOTENCY_REPLAYS_CACHE);
+    }
+
+    @Test
+    void retryWithSameKeyReplaysFirstTransaction() {
+
+        String key = UUID.randomUUID().toString();
+        BigDecimal balanceBefore = balance();
+
+        UUID first = topUp(key, BigDecimal.TEN);
+        UUID retry = topUp(key, new BigDecimal("10.00"));
+
+        assertEquals(first, retry);
+        assertEquals(0, balanceBefore.add(BigDecimal.TEN).compareTo(balance()));
+    }
+
+    @Test
+    void keyOfAnotherOperationIsRejected() {
+
+        String key = UUID.randomUUID().toString();
+        topUp(key, BigDecimal.ONE);
+
+        assertThrows(DomainException.class, () -> idempotencyService.execute(user.getId(), key, IdempotentOperation.TRANSFER,
+                List.of(walletId, BigDecimal.ONE), () -> walletService.topUp(walletId, BigDecimal.ONE)));
+    }
+
+    @Test
+    void failedAttemptReleasesKey() {
+
+        String key = UUID.randomUUID().toString();
+        assertThrows(DomainException.class, () -> idempotencyService.execute(user.getId(), key, IdempotentOperation.WALLET_TOP_UP,
+                List.of(walletId, BigDecimal.ONE), () -> {
+                    throw new DomainException("Notification service is down");
+                }));
+
+        UUID retry = topUp(key, BigDecimal.ONE);
+        assertNotNull(retry);
+    }
+
+    @Test
+    void keyReusedWithOtherParametersIsRejected() {
+
+        String key = UUID.randomUUID().toString();
+        topUp(key, BigDecimal.ONE);
+        BigDecimal balanceBefore = balance();
+
+        assertThrows(DomainException.class, () -> topUp(key, BigDecimal.TEN));
+        // Also when the key has to be read back from the database
+        replays.clear();
+        assertThrows(DomainException.class, () -> topUp(key, BigDecimal.TEN));
+        assertEquals(0, balanceBefore.compareTo(balance()));
+    }
+
+    // Another node, or this one after the cache entry expired - the completed key is read from idempotency_keys
+    @Test
+    void retryOnAnotherNodeReplaysFromDatabase() {
+
+        String key = UUID.randomUUID().toString();
+        UUID first = topUp(key, BigDecimal.ONE);
+        BigDecimal balanceBefore = balance();
+
+        replays.clear();
+
+        assertEquals(first, topUp(key, BigDecimal.ONE));
+        assertEquals(0, balanceBefore.compareTo(balance()));
+    }
+
+    @Test
+    void retryWhileFirstAttemptRunsWaitsForItsResult() throws Exception {
+
+        String key = UUID.randomUUID().toString();
+        BigDecimal balanceBefore = balance();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<UUID> first = executor.submit(() -> idempotencyService.execute(user.getId(), key, IdempotentOperation.WALLET_TOP_UP,
+                    List.of(walletId, BigDecimal.ONE), () -> {
+                        firstStarted.countDown();
+                        awaitUninterruptibly(releaseFirst);
+                        return walletService.topUp(walletId, BigDecimal.ONE);
+                    }));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+            Future<UUID> retry = executor.submit(() -> topUp(key, BigDecimal.ONE));
+            Thread.sleep(300);
+            assertFalse(retry.isDone());
+
+            releaseFirst.countDown();
+            assertEquals(first.get(5, TimeUnit.SECONDS), retry.get(5, TimeUnit.SECONDS));
+        } finally {
+            releaseFirst.countDown();
+            executor.shutdown();
+        }
+        assertEquals(0, balanceBefore.add(BigDecimal.ONE).compareTo(balance()));
+    }
+
+    private UUID topUp(String key, BigDecimal amount) {
+        return idempotencyService.execute(user.getId(), key, IdempotentOperation.WALLET_TOP_UP, List.of(walletId, amount),
+                () -> walletService.topUp(walletId, amount));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private BigDecimal balance() {
+        return walletRepository.findById(walletId).map(Wallet::getBalance).orElseThrow();
+    }
+}
@@ -0,0 +1,61 @@
+package app.metrics;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.user.model.User;
+import app.wallet.service.WalletService;
+import app.web.dto.BulkTransferLine;
+import app.web.dto.BulkTransferRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ApplicationTest
+class ServiceOperationMetricsTests {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private TestUsers testUsers;
+
+    @Test
+    void bulkTransfersAreTaggedByTheOutcomeOfTheirLines() {
+
+        User sender = testUsers.register("metrics-bulk-sender");
+        User receiver = testUsers.register("metrics-bulk-receiver");
+        long partialBefore = bulkTransfers("partial", "Invalid criteria for transfer");
+        long failedBefore = bulkTransfers("failed", "Invalid criteria for transfer");
+
+        bulkTransfer(sender, List.of(line(receiver.getUsername()), line("metrics-nobody"), line("metrics-nobody-either")));
+        bulkTransfer(sender, List.of(line("metrics-nobody")));
+
+        assertEquals(partialBefore + 1, bulkTransfers("partial", "Invalid criteria for transfer"));
+        assertEquals(failedBefore + 1, bulkTransfers("failed", "Invalid criteria for transfer"));
+    }
+
+    private long bulkTransfers(String outcome, String reason) {
+
+        Timer timer = meterRegistry.find("wallet.operations")
+                .tags("operation", "bulkTransfer", "outcome", outcome, "reason", reason)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private void bulkTransfer(User sender, List<BulkTransferLine> lines) {
+        walletService.bulkTransfer(sender.getId(), BulkTransferRequest.builder()
+                .fromWalletId(sender.getWallets().get(0).getId())
+                .lines(lines)
+                .build());
+    }
+
+    private static BulkTransferLine line(String toUsername) {
+        return new BulkTransferLine(toUsername, BigDecimal.ONE);
+    }
+}
@@ -0,0 +1,58 @@
+package app.notification.client;
+
+import app.notification.client.dto.Notification;
+import app.notification.client.dto.NotificationPreference;
+import app.notification.client.dto.NotificationRequest;
+import app.notification.client.dto.UpsertNotificationPreference;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the notification service in tests and benchmarks - every call succeeds without leaving the JVM.
+ */
+public class StubNotificationClient implements NotificationClient {
+    private final AtomicLong sentNotifications = new AtomicLong();
+
+    @Override
+    public ResponseEntity<Void> upsertNotificationPreference(UpsertNotificationPreference upsertNotificationPreference) {
+        return ResponseEntity.ok().build();
+    }
+
+    @Override
+    public ResponseEntity<NotificationPreference> getNotificationPreference(UUID userId) {
+        return ResponseEntity.notFound().build();
+    }
+
+    @Override
+    public ResponseEntity<Void> updateNotificationPreference(UUID userId, boolean isEnabled) {
+        return ResponseEntity.ok().build();
+    }
+
+    @Override
+    public ResponseEntity<Void> sendNotification(NotificationRequest notificationRequest) {
+        sentNotifications.incrementAndGet();
+        return ResponseEntity.ok().build();
+    }
+
+    @Override
+    public ResponseEntity<List<Notification>> getNotificationHistory(UUID userId) {
+        return ResponseEntity.ok(List.of());
+    }
+
+    @Override
+    public ResponseEntity<Void> clearNotificationHistory(UUID userId) {
+        return ResponseEntity.ok().build();
+    }
+
+    @Override
+    public ResponseEntity<Void> retryFailedNotifications(UUID userId) {
+        return ResponseEntity.ok().build();
+    }
+
+    public long getSentNotifications() {
+        return sentNotifications.get();
+    }
+}
@@ -0,0 +1,25 @@
+package app.notification.client;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Puts a {@link StubNotificationClient} in place of the notification service. Feign registers its proxy as primary
+ * under the interface name (and needs the definition to stay), so the proxy is demoted and the stub made primary.
+ */
+@TestConfiguration
+public class StubNotificationClientConfiguration {
+
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor stubNotificationClientRegistrar() {
+        return registry -> {
+            registry.getBeanDefinition(NotificationClient.class.getName()).setPrimary(false);
+
+            RootBeanDefinition stub = new RootBeanDefinition(StubNotificationClient.class);
+            stub.setPrimary(true);
+            registry.registerBeanDefinition("stubNotificationClient", stub);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package app.notification.service;
+
+import app.ApplicationTest;
+import app.notification.model.NotificationOutbox;
+import app.notification.model.OutboxStatus;
+import app.notification.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ApplicationTest
+class NotificationOutboxServiceTests {
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Test
+    void purgeDeletesOnlyEntriesSentBeforeTheRetention() {
+
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(30);
+        NotificationOutbox oldSent = save(OutboxStatus.SENT, longAgo, longAgo);
+        NotificationOutbox recentSent = save(OutboxStatus.SENT, longAgo, LocalDateTime.now());
+        NotificationOutbox oldFailed = save(OutboxStatus.FAILED, longAgo, null);
+        NotificationOutbox pending = save(OutboxStatus.PENDING, longAgo, null);
+
+        notificationOutboxService.purgeSent();
+
+        assertFalse(notificationOutboxRepository.existsById(oldSent.getId()));
+        assertTrue(notificationOutboxRepository.existsById(recentSent.getId()));
+        assertTrue(notificationOutboxRepository.existsById(oldFailed.getId()));
+        assertTrue(notificationOutboxRepository.existsById(pending.getId()));
+    }
+
+    private NotificationOutbox save(OutboxStatus status, LocalDateTime createdOn, LocalDateTime sentOn) {
+        return notificationOutboxRepository.save(NotificationOutbox.builder()
+                .userId(UUID.randomUUID())
+                .subject("Subject")
+                .body("Body")
+                .status(status)
+                // Not due - the dispatcher leaves the pending entry alone
+                .nextAttemptOn(LocalDateTime.now().plusYears(1))
+                .createdOn(createdOn)
+                .sentOn(sentOn)
+                .build());
+    }
+}
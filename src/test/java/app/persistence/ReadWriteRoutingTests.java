@@ -0,0 +1,127 @@
+package app.persistence;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.user.model.User;
+import app.user.repository.UserRepository;
+import app.user.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs against two embedded databases, each holding a marker row with its own name, so every read reports
+ * which database served it.
+ */
+@ApplicationTest
+@ActiveProfiles({"test", "replica"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadWriteRoutingTests {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeAll
+    void createMarkers() {
+
+        for (DataSource target : new DataSource[]{primaryDataSource, replicaDataSource}) {
+            JdbcTemplate targetJdbcTemplate = new JdbcTemplate(target);
+            targetJdbcTemplate.execute("CREATE TABLE IF NOT EXISTS routing_marker (name VARCHAR(16))");
+            targetJdbcTemplate.update("DELETE FROM routing_marker");
+            targetJdbcTemplate.update("INSERT INTO routing_marker VALUES (?)", target == primaryDataSource ? "primary" : "replica");
+        }
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @BeforeEach
+    void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void endRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionOfRequestReadsReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> marker()));
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        assertEquals("primary", readWriteTransaction.execute(status -> marker()));
+    }
+
+    @Test
+    void readOnlyTransactionWithoutRequestUsesPrimary() {
+
+        RequestContextHolder.resetRequestAttributes();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> marker()));
+    }
+
+    @Test
+    void sessionReadsPrimaryForPinDurationAfterWrite() throws InterruptedException {
+
+        readWriteTransaction.executeWithoutResult(status -> jdbcTemplate.update("UPDATE routing_marker SET name = name"));
+        assertEquals("primary", readOnlyTransaction.execute(status -> marker()));
+
+        Thread.sleep(600);
+        assertEquals("replica", readOnlyTransaction.execute(status -> marker()));
+    }
+
+    // The replica has no schema - a read-modify-write whose read strayed there would fail, one served by a lagging
+    // replica would write back a stale row
+    @Test
+    void readModifyWriteOfRequestUsesPrimary() {
+
+        RequestContextHolder.resetRequestAttributes();
+        User user = testUsers.register("routing-user");
+        startRequest();
+
+        userService.switchStatus(user.getId());
+
+        assertFalse(userRepository.findById(user.getId()).orElseThrow().isActive());
+    }
+
+    private String marker() {
+        return jdbcTemplate.queryForObject("SELECT name FROM routing_marker", String.class);
+    }
+}
@@ -0,0 +1,28 @@
+package app.persistence;
+
+import app.web.StatementStatisticsFilter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers on the SQL statement count of a request, as reported by {@link StatementStatisticsFilter}.
+ * A failure names the endpoint, so a new N+1 shows up as "GET /wallets issued 23 SQL statements, at most 6 expected".
+ */
+public final class StatementCountMatchers {
+
+    private StatementCountMatchers() {
+    }
+
+    public static ResultMatcher statementsAtMost(int max) {
+        return result -> {
+            String header = result.getResponse().getHeader(StatementStatisticsFilter.STATEMENTS_HEADER);
+            assertNotNull(header, "No [%s] header - is the test profile active?".formatted(StatementStatisticsFilter.STATEMENTS_HEADER));
+
+            int statements = Integer.parseInt(header);
+            assertTrue(statements <= max, "%s %s issued %d SQL statements, at most %d expected".formatted(
+                    result.getRequest().getMethod(), result.getRequest().getRequestURI(), statements, max));
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package app.ratelimit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketTests {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstUpToCapacityThenWaitForRefill() {
+
+        TokenBucket bucket = new TokenBucket(3, SECOND, 0);
+
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(SECOND, bucket.tryConsume(0));
+
+        assertEquals(SECOND / 2, bucket.tryConsume(SECOND / 2));
+        assertEquals(0, bucket.tryConsume(SECOND));
+        assertEquals(SECOND, bucket.tryConsume(SECOND));
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToCapacity() {
+
+        TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+
+        long later = 100 * SECOND;
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(SECOND, bucket.tryConsume(later));
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanCapacity() throws InterruptedException {
+
+        TokenBucket bucket = new TokenBucket(100, SECOND, 0);
+        AtomicInteger granted = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                if (bucket.tryConsume(0) == 0) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertEquals(100, granted.get());
+    }
+}
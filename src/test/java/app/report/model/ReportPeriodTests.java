@@ -0,0 +1,31 @@
+package app.report.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportPeriodTests {
+
+    @Test
+    void dayStartsOnItself() {
+        assertEquals(LocalDate.of(2026, 3, 18), ReportPeriod.DAY.startOf(LocalDate.of(2026, 3, 18)));
+    }
+
+    @Test
+    void weekStartsOnMonday() {
+
+        assertEquals(LocalDate.of(2026, 3, 16), ReportPeriod.WEEK.startOf(LocalDate.of(2026, 3, 16)));
+        assertEquals(LocalDate.of(2026, 3, 16), ReportPeriod.WEEK.startOf(LocalDate.of(2026, 3, 22)));
+        // Across a year boundary
+        assertEquals(LocalDate.of(2025, 12, 29), ReportPeriod.WEEK.startOf(LocalDate.of(2026, 1, 1)));
+    }
+
+    @Test
+    void monthStartsOnTheFirst() {
+
+        assertEquals(LocalDate.of(2026, 2, 1), ReportPeriod.MONTH.startOf(LocalDate.of(2026, 2, 28)));
+        assertEquals(LocalDate.of(2026, 3, 1), ReportPeriod.MONTH.startOf(LocalDate.of(2026, 3, 1)));
+    }
+}
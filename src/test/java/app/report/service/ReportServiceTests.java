@@ -0,0 +1,81 @@
+package app.report.service;
+
+import app.ApplicationTest;
+import app.report.model.ReportPeriod;
+import app.report.model.TransactionRollup;
+import app.report.repository.TransactionRollupRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.web.dto.ReportFilter;
+import app.web.dto.TransactionReport;
+import app.web.dto.TransactionReportRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ApplicationTest
+class ReportServiceTests {
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 16);
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    // Rows of different wallets and shards of one day and of the days of one week end up in one report row
+    @Test
+    void dailyRollupsAreFoldedIntoWeeks() {
+
+        UUID ownerId = UUID.randomUUID();
+        UUID walletId = UUID.randomUUID();
+        transactionRollupRepository.addAll(List.of(
+                rollup(ownerId, MONDAY, walletId, 0, TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, 2, "10.00"),
+                rollup(ownerId, MONDAY, walletId, 1, TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, 3, "5.00"),
+                rollup(ownerId, MONDAY.plusDays(6), UUID.randomUUID(), 0, TransactionType.WITHDRAWAL, TransactionStatus.SUCCEEDED, 1, "4.00"),
+                rollup(ownerId, MONDAY.plusDays(7), walletId, 0, TransactionType.WITHDRAWAL, TransactionStatus.FAILED, 1, "99.00")));
+
+        TransactionReport report = reportService.getTransactionReport(ReportFilter.builder()
+                .userId(ownerId)
+                .period(ReportPeriod.WEEK)
+                .from(MONDAY)
+                .to(MONDAY.plusDays(13))
+                .build());
+
+        assertEquals(2, report.getRows().size());
+        TransactionReportRow firstWeek = report.getRows().get(0);
+        assertEquals(MONDAY, firstWeek.getPeriodStart());
+        assertEquals(6, firstWeek.getTransactions());
+        assertEquals(5, firstWeek.getDeposits());
+        assertEquals(1, firstWeek.getWithdrawals());
+        assertEquals(0, new BigDecimal("15.00").compareTo(firstWeek.getDepositedAmount()));
+        assertEquals(0, new BigDecimal("4.00").compareTo(firstWeek.getWithdrawnAmount()));
+
+        TransactionReportRow secondWeek = report.getRows().get(1);
+        assertEquals(MONDAY.plusDays(7), secondWeek.getPeriodStart());
+        assertEquals(1, secondWeek.getFailed());
+        // Failed transactions moved no money
+        assertEquals(0, BigDecimal.ZERO.compareTo(secondWeek.getWithdrawnAmount()));
+
+        assertEquals(7, report.getTotals().getTransactions());
+        assertEquals(6, report.getTotals().getSucceeded());
+    }
+
+    private static TransactionRollup rollup(UUID ownerId, LocalDate date, UUID walletId, int walletShard,
+                                            TransactionType type, TransactionStatus status, long count, String amount) {
+        return TransactionRollup.builder()
+                .ownerId(ownerId)
+                .rollupDate(date)
+                .walletId(walletId)
+                .walletShard(walletShard)
+                .type(type)
+                .status(status)
+                .transactionCount(count)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
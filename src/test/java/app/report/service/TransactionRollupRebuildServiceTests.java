@@ -0,0 +1,93 @@
+package app.report.service;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.report.model.TransactionRollup;
+import app.report.repository.TransactionRollupRepository;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.user.model.User;
+import app.wallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ApplicationTest
+class TransactionRollupRebuildServiceTests {
+    @Autowired
+    private TransactionRollupRebuildService transactionRollupRebuildService;
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void onlyDaysOfTheRangeAreRebuilt() {
+
+        User user = testUsers.register("rebuild-owner");
+        UUID walletId = user.getWallets().get(0).getId();
+        LocalDate today = LocalDate.now();
+
+        // Two days ago - inside the range, its rollup row is lost and has to come back
+        moveTo(walletService.topUp(walletId, new BigDecimal("5.00")), today.minusDays(2));
+        moveTo(walletService.topUp(walletId, new BigDecimal("7.00")), today.minusDays(2));
+        // Before the range - its stale rollup must be kept as it is
+        moveTo(walletService.topUp(walletId, new BigDecimal("1.00")), today.minusDays(30));
+        // Today - still owned by the incremental upserts
+        walletService.topUp(walletId, new BigDecimal("3.00"));
+
+        transactionRollupRepository.deleteAll(rollupsOf(user));
+        transactionRollupRepository.addAll(List.of(TransactionRollup.builder()
+                .ownerId(user.getId())
+                .rollupDate(today.minusDays(30))
+                .walletId(walletId)
+                .type(TransactionType.DEPOSIT)
+                .status(TransactionStatus.SUCCEEDED)
+                .transactionCount(99)
+                .amount(new BigDecimal("99.00"))
+                .build()));
+
+        transactionRollupRebuildService.rebuild(today.minusDays(7));
+
+        List<TransactionRollup> rollups = rollupsOf(user);
+        assertEquals(2, rollups.size());
+        TransactionRollup rebuilt = rollupOn(rollups, today.minusDays(2));
+        assertEquals(2, rebuilt.getTransactionCount());
+        assertEquals(0, new BigDecimal("12.00").compareTo(rebuilt.getAmount()));
+        assertEquals(99, rollupOn(rollups, today.minusDays(30)).getTransactionCount());
+    }
+
+    private void moveTo(Transaction transaction, LocalDate day) {
+        jdbcTemplate.update("UPDATE transactions SET created_on = ? WHERE id = ?", day.atTime(12, 0), toBytes(transaction.getId()));
+    }
+
+    private List<TransactionRollup> rollupsOf(User user) {
+        return transactionRollupRepository.findAll().stream()
+                .filter(r -> r.getOwnerId().equals(user.getId()))
+                .toList();
+    }
+
+    private static TransactionRollup rollupOn(List<TransactionRollup> rollups, LocalDate day) {
+        return rollups.stream().filter(r -> r.getRollupDate().equals(day)).findFirst().orElseThrow();
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
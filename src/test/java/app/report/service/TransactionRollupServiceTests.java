@@ -0,0 +1,100 @@
+package app.report.service;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.report.model.TransactionRollup;
+import app.report.repository.TransactionRollupRepository;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.user.model.User;
+import app.wallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ApplicationTest
+class TransactionRollupServiceTests {
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transactionsOfTheSameKeyAddUpInOneRow() {
+
+        User user = testUsers.register("rollup-owner");
+        UUID walletId = user.getWallets().get(0).getId();
+
+        walletService.topUp(walletId, new BigDecimal("5.00"));
+        walletService.topUp(walletId, new BigDecimal("7.50"));
+        walletService.charge(user, walletId, new BigDecimal("3.00"), "Charge");
+        walletService.charge(user, walletId, new BigDecimal("1000.00"), "Charge");
+
+        List<TransactionRollup> rollups = rollupsOf(user);
+        assertEquals(3, rollups.size());
+        assertRollup(rollups, TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, 2, "12.50");
+        assertRollup(rollups, TransactionType.WITHDRAWAL, TransactionStatus.SUCCEEDED, 1, "3.00");
+        assertRollup(rollups, TransactionType.WITHDRAWAL, TransactionStatus.FAILED, 1, "1000.00");
+        assertTrue(rollups.stream().allMatch(r -> r.getWalletShard() == 0));
+    }
+
+    @Test
+    void shardedWalletSpreadsItsRollupsOverShards() {
+
+        User user = testUsers.register("rollup-sharded-owner");
+        UUID walletId = user.getWallets().get(0).getId();
+        walletService.configureBalanceShards(walletId, 4);
+
+        for (int i = 0; i < 40; i++) {
+            walletService.topUp(walletId, BigDecimal.ONE);
+        }
+
+        List<TransactionRollup> rollups = rollupsOf(user);
+        assertTrue(rollups.size() > 1 && rollups.size() <= 4);
+        assertTrue(rollups.stream().allMatch(r -> r.getWalletShard() >= 0 && r.getWalletShard() < 4));
+        assertEquals(40, rollups.stream().mapToLong(TransactionRollup::getTransactionCount).sum());
+        assertEquals(0, new BigDecimal("40").compareTo(rollups.stream().map(TransactionRollup::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    // Reports of one user are a range scan only while the owner leads the key
+    @Test
+    void primaryKeyStartsWithTheOwner() {
+
+        String firstKeyColumn = jdbcTemplate.queryForObject("""
+                SELECT k.column_name FROM information_schema.key_column_usage k
+                JOIN information_schema.table_constraints c ON c.constraint_name = k.constraint_name
+                WHERE k.table_name = 'transaction_daily_rollups' AND c.constraint_type = 'PRIMARY KEY'
+                ORDER BY k.ordinal_position LIMIT 1
+                """, String.class);
+
+        assertEquals("owner_id", firstKeyColumn);
+    }
+
+    private List<TransactionRollup> rollupsOf(User user) {
+        return transactionRollupRepository.findAll().stream()
+                .filter(r -> r.getOwnerId().equals(user.getId()))
+                .toList();
+    }
+
+    private static void assertRollup(List<TransactionRollup> rollups, TransactionType type, TransactionStatus status,
+                                     long count, String amount) {
+
+        TransactionRollup rollup = rollups.stream()
+                .filter(r -> r.getType() == type && r.getStatus() == status)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(count, rollup.getTransactionCount());
+        assertEquals(0, new BigDecimal(amount).compareTo(rollup.getAmount()));
+    }
+}
@@ -0,0 +1,134 @@
+package app.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tick 1000 ms and 4 slots: level 0 spans 4 s, level 1 16 s, level 2 64 s
+class TimingWheelTests {
+    private static final long TICK = 1000;
+    private static final int SIZE = 4;
+
+    @Test
+    void itemIsDueOnceItsTickHasPassed() {
+
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+        assertTrue(wheel.schedule("a", 2500));
+
+        assertEquals(List.of(), wheel.advance(2999));
+        assertEquals(List.of("a"), wheel.advance(3000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expirationInPassedTickIsRejected() {
+
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 5500);
+
+        assertFalse(wheel.schedule("passed", 4999));
+        assertTrue(wheel.schedule("current-tick", 5000));
+        assertEquals(List.of("current-tick"), wheel.advance(6000));
+    }
+
+    @Test
+    void itemsOnHigherLevelsCascadeDown() {
+
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+        wheel.schedule("level-1", 9500);
+        wheel.schedule("level-2", 40200);
+        wheel.schedule("beyond-level-2", 70000);
+
+        assertEquals(Map.of("level-1", 10000L, "level-2", 41000L, "beyond-level-2", 71000L), dueTimes(wheel, 0, 80000));
+    }
+
+    @Test
+    void expirationsOnLevelBoundariesCascadeInTheBoundaryTick() {
+
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+        wheel.schedule("level-0-end", 3999);
+        wheel.schedule("level-1-start", 4000);
+        wheel.schedule("level-2-start", 16000);
+        wheel.schedule("level-2-lap", 64000);
+
+        assertEquals(Map.of("level-0-end", 4000L, "level-1-start", 5000L, "level-2-start", 17000L, "level-2-lap", 65000L),
+                dueTimes(wheel, 0, 70000));
+    }
+
+    @Test
+    void reschedulingMovesTheItem() {
+
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+        wheel.schedule("later", 1500);
+        wheel.schedule("later", 20500);
+        wheel.schedule("sooner", 20500);
+        wheel.schedule("sooner", 1500);
+
+        assertEquals(2, wheel.size());
+        assertEquals(Map.of("sooner", 2000L, "later", 21000L), dueTimes(wheel, 0, 30000));
+    }
+
+    @Test
+    void schedulingTheSameExpirationAgainKeepsOneEntry() {
+
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+        wheel.schedule("a", 7000);
+        wheel.schedule("a", 7000);
+
+        assertEquals(List.of("a"), wheel.advance(10000));
+    }
+
+    /**
+     * Random expirations and unaligned advance steps: every item comes out of the first advance that reaches the end
+     * of its expiration's tick - never earlier, and so at most one tick (plus the caller's step) late.
+     */
+    @Test
+    void itemsAreNeverEarlyAndAtMostOneTickLate() {
+
+        Random random = new Random(42);
+        long start = 123_456;
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, SIZE, start);
+
+        Map<Integer, Long> expirations = new HashMap<>();
+        for (int item = 0; item < 500; item++) {
+            long expiration = start + random.nextInt(200_000);
+            expirations.put(item, expiration);
+            wheel.schedule(item, expiration);
+        }
+
+        long now = start;
+        while (wheel.size() > 0) {
+            long previous = now;
+            now += 1 + random.nextInt(1500);
+            for (Integer item : wheel.advance(now)) {
+                long tickEnd = expirations.get(item) - expirations.get(item) % TICK + TICK;
+                assertTrue(tickEnd <= now, "item %d early".formatted(item));
+                assertTrue(tickEnd > previous, "item %d missed by an earlier advance".formatted(item));
+                expirations.remove(item);
+            }
+        }
+        assertTrue(expirations.isEmpty());
+    }
+
+    // Advances tick by tick and reports at which time each item came out
+    private static Map<String, Long> dueTimes(TimingWheel<String> wheel, long from, long to) {
+
+        Map<String, Long> dueTimes = new HashMap<>();
+        List<String> all = new ArrayList<>();
+        for (long now = from + TICK; now <= to; now += TICK) {
+            for (String item : wheel.advance(now)) {
+                dueTimes.put(item, now);
+                all.add(item);
+            }
+        }
+        assertEquals(dueTimes.size(), all.size(), "item due more than once");
+        return dueTimes;
+    }
+}
@@ -0,0 +1,97 @@
+package app.transaction.service;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionExportFormat;
+import app.user.model.User;
+import app.wallet.service.WalletService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ApplicationTest
+class TransactionExportServiceTests {
+    @Autowired
+    private TransactionExportService transactionExportService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void csvHasHeaderAndOneLinePerTransactionOldestFirst() throws IOException {
+
+        User user = testUsers.register("export-csv-owner");
+        UUID walletId = user.getWallets().get(0).getId();
+        Transaction first = walletService.topUp(walletId, new BigDecimal("5.00"));
+        Transaction second = walletService.charge(user, walletId, new BigDecimal("2.00"), "Coffee, large");
+
+        List<String> lines = export(user, TransactionExportFormat.CSV);
+
+        assertEquals(3, lines.size());
+        assertEquals("id,created_on,type,status,amount,currency,balance_left,sender,receiver,description,failure_reason", lines.get(0));
+        assertEquals(first.getId().toString(), lines.get(1).split(",")[0]);
+        assertEquals(second.getId().toString(), lines.get(2).split(",")[0]);
+        // Fields with commas are quoted
+        assertTrue(lines.get(2).contains("\"Coffee, large\""));
+    }
+
+    @Test
+    void csvNeutralizesCellsThatStartLikeFormulas() throws IOException {
+
+        User user = testUsers.register("export-formula-owner");
+        UUID walletId = user.getWallets().get(0).getId();
+        walletService.charge(user, walletId, BigDecimal.ONE, "=HYPERLINK(\"http://evil\")");
+        walletService.charge(user, walletId, BigDecimal.ONE, "@SUM(A1)");
+        walletService.charge(user, walletId, BigDecimal.ONE, "Coffee -2");
+
+        List<String> lines = export(user, TransactionExportFormat.CSV);
+
+        assertTrue(lines.get(1).contains(",\"'=HYPERLINK(\"\"http://evil\"\")\","));
+        assertTrue(lines.get(2).contains(",\"'@SUM(A1)\","));
+        // Only the first character matters
+        assertTrue(lines.get(3).contains(",Coffee -2,"));
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerTransaction() throws IOException {
+
+        User user = testUsers.register("export-json-owner");
+        Transaction topUp = walletService.topUp(user.getWallets().get(0).getId(), new BigDecimal("5.00"));
+
+        List<String> lines = export(user, TransactionExportFormat.NDJSON);
+
+        assertEquals(1, lines.size());
+        JsonNode row = objectMapper.readTree(lines.get(0));
+        assertEquals(topUp.getId().toString(), row.get("id").asText());
+        assertEquals("DEPOSIT", row.get("type").asText());
+        assertEquals(0, new BigDecimal("5.00").compareTo(new BigDecimal(row.get("amount").asText())));
+        assertEquals("EUR", row.get("currency").asText());
+    }
+
+    private List<String> export(User user, TransactionExportFormat format) throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        transactionExportService.export(user.getId(), format, output);
+
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package app.wallet.service;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.user.model.User;
+import app.wallet.repository.WalletBalanceShardRepository;
+import app.wallet.repository.WalletRepository;
+import app.web.dto.TransferRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Credits to a sharded wallet racing charges that have to consolidate its shards, and sharded wallets paying each
+ * other - every operation must complete (no deadlock, no lock timeout) and no money may appear or vanish.
+ */
+@ApplicationTest
+class WalletShardingTests {
+    private static final int THREADS = 8;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletBalanceShardRepository walletBalanceShardRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void creditsRacingConsolidationKeepTheBalance() throws Exception {
+
+        User user = testUsers.register("sharded-owner");
+        UUID walletId = user.getWallets().get(0).getId();
+        walletService.configureBalanceShards(walletId, 4);
+        // Empty wallet row - every charge below has to consolidate the shards first
+        walletService.charge(user, walletId, new BigDecimal("20.00"), "Drain");
+
+        List<Callable<Transaction>> operations = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            operations.add(() -> walletService.topUp(walletId, BigDecimal.ONE));
+            if (i % 2 == 0) {
+                operations.add(() -> walletService.charge(user, walletId, BigDecimal.ONE, "Charge"));
+            }
+        }
+        List<Transaction> results = runConcurrently(operations);
+
+        long charged = results.stream()
+                .filter(t -> t.getDescription().equals("Charge") && t.getStatus() == TransactionStatus.SUCCEEDED)
+                .count();
+        assertEquals(0, BigDecimal.valueOf(60 - charged).compareTo(totalBalance(walletId)));
+    }
+
+    @Test
+    void shardedWalletsPayingEachOtherKeepTheBalance() throws Exception {
+
+        User first = testUsers.register("sharded-first");
+        User second = testUsers.register("sharded-second");
+        UUID firstWalletId = first.getWallets().get(0).getId();
+        UUID secondWalletId = second.getWallets().get(0).getId();
+        walletService.configureBalanceShards(firstWalletId, 4);
+        walletService.configureBalanceShards(secondWalletId, 4);
+
+        List<Callable<Transaction>> operations = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            operations.add(() -> walletService.transferFunds(first.getId(), transfer(firstWalletId, second.getUsername())));
+            operations.add(() -> walletService.transferFunds(second.getId(), transfer(secondWalletId, first.getUsername())));
+        }
+        runConcurrently(operations);
+
+        assertEquals(0, new BigDecimal("40.00").compareTo(totalBalance(firstWalletId).add(totalBalance(secondWalletId))));
+    }
+
+    @Test
+    void creditToWalletDeactivatedAfterItWasLoadedFails() {
+
+        User user = testUsers.register("sharded-deactivated");
+        UUID walletId = user.getWallets().get(0).getId();
+        walletService.configureBalanceShards(walletId, 4);
+        BigDecimal balanceBefore = totalBalance(walletId);
+
+        Transaction topUp = transactionTemplate.execute(status -> {
+            // The wallet is in the persistence context as ACTIVE before it is deactivated and committed elsewhere
+            walletRepository.findById(walletId).orElseThrow();
+            deactivateElsewhere(walletId, user.getId());
+            return walletService.topUp(walletId, BigDecimal.TEN);
+        });
+
+        assertEquals(TransactionStatus.FAILED, topUp.getStatus());
+        assertEquals("Inactive wallet", topUp.getFailureReason());
+        assertEquals(0, balanceBefore.compareTo(totalBalance(walletId)));
+    }
+
+    @Test
+    void chargeToWalletDeactivatedAfterItWasLoadedReportsTheInactiveWallet() {
+
+        User user = testUsers.register("sharded-deactivated-charge");
+        UUID walletId = user.getWallets().get(0).getId();
+        walletService.configureBalanceShards(walletId, 4);
+
+        Transaction charge = transactionTemplate.execute(status -> {
+            walletRepository.findById(walletId).orElseThrow();
+            deactivateElsewhere(walletId, user.getId());
+            // More than the balance - only the current status tells the two failure reasons apart
+            return walletService.charge(user, walletId, new BigDecimal("1000.00"), "Charge");
+        });
+
+        assertEquals(TransactionStatus.FAILED, charge.getStatus());
+        assertEquals("Inactive wallet", charge.getFailureReason());
+        assertEquals(0, totalBalance(walletId).compareTo(charge.getBalanceLeft()));
+    }
+
+    private void deactivateElsewhere(UUID walletId, UUID ownerId) {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> walletService.switchStatus(walletId, ownerId)).get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<Transaction> runConcurrently(List<Callable<Transaction>> operations) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Transaction> results = new ArrayList<>();
+            // get() rethrows the failure of any operation - a deadlock victim fails the test
+            for (Future<Transaction> future : executor.invokeAll(operations)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BigDecimal totalBalance(UUID walletId) {
+        return walletRepository.findBalanceById(walletId).add(walletBalanceShardRepository.sumBalanceByWalletId(walletId));
+    }
+
+    private static TransferRequest transfer(UUID fromWalletId, String toUsername) {
+        return TransferRequest.builder()
+                .fromWalletId(fromWalletId)
+                .toUsername(toUsername)
+                .amount(BigDecimal.ONE)
+                .build();
+    }
+}
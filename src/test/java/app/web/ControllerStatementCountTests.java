@@ -0,0 +1,94 @@
+package app.web;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.security.AuthenticationMetadata;
+import app.user.model.Role;
+import app.user.model.User;
+import app.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static app.persistence.StatementCountMatchers.statementsAtMost;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Upper bounds on the SQL statements of the main pages. The account has ten transactions, so a page that loads
+ * them (or their owners) one by one goes well over its bound.
+ */
+@ApplicationTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ControllerStatementCountTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private CacheManager cacheManager;
+    private AuthenticationMetadata principal;
+
+    @BeforeAll
+    void createAccountWithHistory() {
+
+        User user = testUsers.register("statement-counts");
+        for (int i = 0; i < 10; i++) {
+            walletService.topUp(user.getWallets().get(0).getId(), BigDecimal.TEN);
+        }
+
+        principal = TestUsers.principalOf(user, Role.ADMIN);
+    }
+
+    // Bounds are for a cold cache - what a page costs on the node that has not seen the user yet
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void homePage() throws Exception {
+        mockMvc.perform(get("/home").with(user(principal)))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2));
+    }
+
+    @Test
+    void walletsPage() throws Exception {
+        mockMvc.perform(get("/wallets").with(user(principal)))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(3));
+    }
+
+    @Test
+    void transactionsPage() throws Exception {
+        mockMvc.perform(get("/transactions").with(user(principal)))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(3));
+    }
+
+    @Test
+    void subscriptionHistoryPage() throws Exception {
+        mockMvc.perform(get("/subscriptions/history").with(user(principal)))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2));
+    }
+
+    @Test
+    void usersPage() throws Exception {
+        mockMvc.perform(get("/users").with(user(principal)))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2));
+    }
+}
@@ -0,0 +1,54 @@
+package app.web;
+
+import app.ApplicationTest;
+import app.security.AuthenticationMetadata;
+import app.user.model.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Tests turn metrics exporters off by default - the endpoint would not exist
+@ApplicationTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class PrometheusEndpointSecurityTests {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anonymousScrapeIsRejected() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void scrapeWithWrongPasswordIsRejected() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void scrapeUserGetsTheMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "scrape-password")))
+                .andExpect(status().isOk());
+    }
+
+    // Signed in users - admins included - go through the scrape user too
+    @Test
+    void applicationUserIsNotAScraper() throws Exception {
+
+        AuthenticationMetadata admin = new AuthenticationMetadata(UUID.randomUUID(), "admin", "password", Role.ADMIN, true);
+
+        mockMvc.perform(get("/actuator/prometheus").with(user(admin)))
+                .andExpect(status().isForbidden());
+    }
+}
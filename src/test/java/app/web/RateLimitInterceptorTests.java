@@ -0,0 +1,126 @@
+package app.web;
+
+import app.ApplicationTest;
+import app.TestUsers;
+import app.security.AuthenticationMetadata;
+import app.subscription.model.SubscriptionPeriod;
+import app.subscription.model.SubscriptionType;
+import app.subscription.service.SubscriptionService;
+import app.user.model.Role;
+import app.user.model.User;
+import app.wallet.service.WalletService;
+import app.web.dto.BulkTransferLine;
+import app.web.dto.BulkTransferRequest;
+import app.web.dto.UpgradeRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ApplicationTest
+@AutoConfigureMockMvc
+class RateLimitInterceptorTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestUsers testUsers;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private SubscriptionService subscriptionService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${rate-limits.tiers.DEFAULT.capacity}")
+    private int defaultCapacity;
+
+    @Test
+    void topUpsOverTheBurstAreRejectedWithRetryAfter() throws Exception {
+
+        User user = testUsers.register("rate-limited");
+        AuthenticationMetadata principal = TestUsers.principalOf(user, Role.USER);
+        UUID walletId = user.getWallets().get(0).getId();
+
+        for (int i = 0; i < defaultCapacity; i++) {
+            mockMvc.perform(put("/wallets/{id}/balance/top-up", walletId).with(user(principal)).with(csrf()))
+                    .andExpect(status().is3xxRedirection());
+        }
+
+        mockMvc.perform(put("/wallets/{id}/balance/top-up", walletId).with(user(principal)).with(csrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(view().name("too-many-requests"));
+
+        mockMvc.perform(put("/wallets/{id}/balance/top-up", walletId).with(user(principal)).with(csrf())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    void bulkTransfersOverTheBurstGetAJsonProblem() throws Exception {
+
+        User user = testUsers.register("rate-limited-bulk");
+        User receiver = testUsers.register("rate-limited-bulk-receiver");
+        AuthenticationMetadata principal = TestUsers.principalOf(user, Role.USER);
+        String body = objectMapper.writeValueAsString(BulkTransferRequest.builder()
+                .fromWalletId(user.getWallets().get(0).getId())
+                .lines(List.of(new BulkTransferLine(receiver.getUsername(), BigDecimal.ONE)))
+                .build());
+
+        for (int i = 0; i < defaultCapacity; i++) {
+            mockMvc.perform(post("/transfers/bulk").with(user(principal)).with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(post("/transfers/bulk").with(user(principal)).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.retryAfterSeconds").isNumber());
+    }
+
+    @Test
+    void upgradeReplacesTheBucketsOfTheOldTier() throws Exception {
+
+        User user = testUsers.register("rate-limited-upgrade");
+        AuthenticationMetadata principal = TestUsers.principalOf(user, Role.USER);
+        UUID walletId = user.getWallets().get(0).getId();
+
+        for (int i = 0; i < defaultCapacity; i++) {
+            mockMvc.perform(put("/wallets/{id}/balance/top-up", walletId).with(user(principal)).with(csrf()));
+        }
+        mockMvc.perform(put("/wallets/{id}/balance/top-up", walletId).with(user(principal)).with(csrf()))
+                .andExpect(status().isTooManyRequests());
+
+        walletService.topUp(walletId, new BigDecimal("100.00"));
+        subscriptionService.upgrade(user.getId(), SubscriptionType.PREMIUM, UpgradeRequest.builder()
+                .subscriptionPeriod(SubscriptionPeriod.MONTHLY)
+                .walletId(walletId)
+                .build());
+
+        mockMvc.perform(put("/wallets/{id}/balance/top-up", walletId).with(user(principal)).with(csrf()))
+                .andExpect(status().is3xxRedirection());
+    }
+}